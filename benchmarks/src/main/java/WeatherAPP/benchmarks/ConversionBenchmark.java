@@ -0,0 +1,74 @@
+package WeatherAPP.benchmarks;
+
+import WeatherAPP.OneCallData;
+import WeatherAPP.OneCallParser;
+import WeatherAPP.WeatherFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit conversions over the hourly series of the fixture (48 entries), as done when series are exported or charted.
+ * The summing variants let the JIT vectorize the loop; the consuming variants show the cost per converted value.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    private float[] temperatures;
+    private float[] windSpeeds;
+
+    @Setup
+    public void setup() {
+        OneCallData.Hourly hourly = OneCallParser.parse(Fixtures.exampleResponse()).getHourly();
+        temperatures = hourly.temp();
+        windSpeeds = hourly.windSpeed();
+    }
+
+    @Benchmark
+    public double kelvinToCelsiusSum() {
+        double sum = 0;
+        for (float temperature : temperatures) {
+            sum += WeatherFormat.kelvinToCelsius(temperature);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double mpsToKmhSum() {
+        double sum = 0;
+        for (float windSpeed : windSpeeds) {
+            sum += WeatherFormat.mpsToKmh(windSpeed);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void kelvinToCelsiusEach(Blackhole blackhole) {
+        for (float temperature : temperatures) {
+            blackhole.consume(WeatherFormat.kelvinToCelsius(temperature));
+        }
+    }
+
+    @Benchmark
+    public void mpsToKmhEach(Blackhole blackhole) {
+        for (float windSpeed : windSpeeds) {
+            blackhole.consume(WeatherFormat.mpsToKmh(windSpeed));
+        }
+    }
+}
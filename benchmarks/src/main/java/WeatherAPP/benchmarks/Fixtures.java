@@ -0,0 +1,31 @@
+package WeatherAPP.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Fixtures class loads the sample One Call response ({@code example.json} of the project root)
+ * that all benchmarks run against.
+ */
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return The sample One Call response.
+     */
+    static String exampleResponse() {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/example.json")) {
+            if (in == null) {
+                throw new IllegalStateException("example.json is not on the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package WeatherAPP.benchmarks;
+
+import WeatherAPP.OneCallParser;
+import WeatherAPP.WeatherFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timestamp formatting. The {@code legacy*} benchmarks build a new {@link DateTimeFormatter} from its pattern on
+ * every call, as {@code formatUnixTime}, {@code formatDate} and {@code createTemperatureGraph} did;
+ * the others use the shared formatters of {@link WeatherFormat}.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FormatBenchmark {
+
+    private long sunrise;
+
+    @Setup
+    public void setup() {
+        sunrise = OneCallParser.parse(Fixtures.exampleResponse()).getCurrent().sunrise();
+    }
+
+    @Benchmark
+    public String legacyFormatUnixTime() {
+        return Instant.ofEpochSecond(sunrise)
+                .atZone(ZoneId.systemDefault())
+                .toLocalDateTime()
+                .format(DateTimeFormatter.ofPattern("HH:mm:ss"));
+    }
+
+    @Benchmark
+    public String formatUnixTime() {
+        return WeatherFormat.formatUnixTime(sunrise);
+    }
+
+    @Benchmark
+    public String legacyFormatDate() {
+        return Instant.ofEpochSecond(sunrise)
+                .atZone(ZoneId.systemDefault())
+                .toLocalDate()
+                .format(DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return WeatherFormat.formatDate(sunrise);
+    }
+
+    @Benchmark
+    public String legacyFormatDayMonth() {
+        return Instant.ofEpochSecond(sunrise)
+                .atZone(ZoneId.systemDefault())
+                .toLocalDate()
+                .format(DateTimeFormatter.ofPattern("dd.MM"));
+    }
+
+    @Benchmark
+    public String formatDayMonth() {
+        return WeatherFormat.formatDayMonth(sunrise);
+    }
+}
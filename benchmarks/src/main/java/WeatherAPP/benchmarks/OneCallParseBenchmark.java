@@ -0,0 +1,142 @@
+package WeatherAPP.benchmarks;
+
+import WeatherAPP.OneCallData;
+import WeatherAPP.OneCallParser;
+import WeatherAPP.WeatherFormat;
+import WeatherAPP.WeatherSection;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a One Call response for the dashboard and the temperature graph.
+ *
+ * The {@code legacy*} benchmarks reproduce what {@code updateWeatherData} and {@code createTemperatureGraph} did
+ * with org.json: every call builds a full {@link JSONObject} tree of the payload, and the graph did so a second time.
+ * The {@code parser*} benchmarks decode the same payload with {@link OneCallParser}.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class OneCallParseBenchmark {
+
+    private static final Set<WeatherSection> DISPLAYED_SECTIONS =
+            EnumSet.of(WeatherSection.CURRENT, WeatherSection.DAILY, WeatherSection.ALERTS);
+
+    private String payload;
+
+    @Setup
+    public void setup() {
+        payload = Fixtures.exampleResponse();
+    }
+
+    /**
+     * The values the dashboard reads, decoded with org.json.
+     */
+    @Benchmark
+    public void legacyDashboard(Blackhole blackhole) {
+        JSONObject json = new JSONObject(payload);
+        JSONObject current = json.getJSONObject("current");
+        blackhole.consume(current.getDouble("temp") - 273.15);
+        blackhole.consume(current.getDouble("feels_like") - 273.15);
+        blackhole.consume(current.getInt("humidity"));
+        blackhole.consume(current.getInt("pressure"));
+        blackhole.consume(current.getDouble("wind_speed") * 3.6);
+        blackhole.consume(current.getInt("visibility"));
+        blackhole.consume(current.getLong("sunrise"));
+        blackhole.consume(current.getLong("sunset"));
+        if (json.has("alerts")) {
+            JSONArray alerts = json.getJSONArray("alerts");
+            for (int i = 0; i < alerts.length(); i++) {
+                JSONObject alert = alerts.getJSONObject(i);
+                blackhole.consume(alert.getString("event"));
+                blackhole.consume(alert.getString("description"));
+            }
+        }
+    }
+
+    /**
+     * The daily temperatures the graph reads, decoded with org.json, including the per-day formatter.
+     */
+    @Benchmark
+    public void legacyGraph(Blackhole blackhole) {
+        JSONObject json = new JSONObject(payload);
+        JSONArray dailyArray = json.getJSONArray("daily");
+        for (int i = 0; i < dailyArray.length(); i++) {
+            JSONObject dayData = dailyArray.getJSONObject(i);
+            blackhole.consume(Instant.ofEpochSecond(dayData.getLong("dt"))
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDate()
+                    .format(DateTimeFormatter.ofPattern("dd.MM")));
+            blackhole.consume(dayData.getJSONObject("temp").getDouble("max") - 273.15);
+            blackhole.consume(dayData.getJSONObject("temp").getDouble("min") - 273.15);
+        }
+    }
+
+    /**
+     * A refresh with the graph window open: the payload was decoded once for the dashboard and once for the graph.
+     */
+    @Benchmark
+    public void legacyDashboardAndGraph(Blackhole blackhole) {
+        legacyDashboard(blackhole);
+        legacyGraph(blackhole);
+    }
+
+    @Benchmark
+    public OneCallData parserAllSections() {
+        return OneCallParser.parse(payload);
+    }
+
+    @Benchmark
+    public OneCallData parserDisplayedSections() {
+        return OneCallParser.parse(payload, DISPLAYED_SECTIONS);
+    }
+
+    /**
+     * The same refresh as {@link #legacyDashboardAndGraph}: one decode shared by dashboard and graph.
+     */
+    @Benchmark
+    public void parserDashboardAndGraph(Blackhole blackhole) {
+        OneCallData data = OneCallParser.parse(payload, DISPLAYED_SECTIONS);
+        OneCallData.Current current = data.getCurrent();
+        blackhole.consume(WeatherFormat.kelvinToCelsius(current.temp()));
+        blackhole.consume(WeatherFormat.kelvinToCelsius(current.feelsLike()));
+        blackhole.consume(current.humidity());
+        blackhole.consume(current.pressure());
+        blackhole.consume(WeatherFormat.mpsToKmh(current.windSpeed()));
+        blackhole.consume(current.visibility());
+        blackhole.consume(current.sunrise());
+        blackhole.consume(current.sunset());
+        for (OneCallData.Alert alert : data.getAlerts()) {
+            blackhole.consume(alert.event());
+            blackhole.consume(alert.description());
+        }
+        OneCallData.Daily daily = data.getDaily();
+        for (int i = 0; i < daily.size(); i++) {
+            blackhole.consume(WeatherFormat.formatDayMonth(daily.dt()[i]));
+            blackhole.consume(WeatherFormat.kelvinToCelsius(daily.tempMax()[i]));
+            blackhole.consume(WeatherFormat.kelvinToCelsius(daily.tempMin()[i]));
+        }
+    }
+}
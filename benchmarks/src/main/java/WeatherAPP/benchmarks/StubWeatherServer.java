@@ -0,0 +1,266 @@
+package WeatherAPP.benchmarks;
+
+import WeatherAPP.OneCallParser;
+import WeatherAPP.WeatherSection;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The StubWeatherServer class is a local stand-in for the One Call endpoint, for load tests of the
+ * fetch, cache and parse pipeline without network access and without using up the API quota.
+ *
+ * It answers {@code GET /data/3.0/onecall?lat=..&lon=..[&exclude=..]} with a payload shaped like
+ * {@code example.json}: the coordinates are those of the request and excluded sections are left out.
+ * Every response is delayed by the configured latency plus a uniformly distributed jitter, and a configurable
+ * share of the requests fails with HTTP 500. Requests are handled on virtual threads, so thousands of
+ * requests per second can be delayed concurrently. It lives in the benchmarks module, so the application and its
+ * runtime image do not depend on {@code jdk.httpserver}.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar WeatherAPP.benchmarks.StubWeatherServer [--port 8080] [--latency 50]
+ *     [--jitter 20] [--error-rate 0.01] [--payload example.json]
+ * </pre>
+ * Latency and jitter are in milliseconds. Point the application at the server with
+ * {@code -Dopenweather.baseUrl=http://localhost:8080/data/3.0/onecall}, or the exporter with
+ * {@code export <file> --endpoint http://localhost:8080/data/3.0/onecall}.
+ *
+ * Header and body go out as separate small writes; without TCP_NODELAY every response waits for a delayed ACK.
+ * {@link #main} therefore enables {@code sun.net.httpserver.nodelay}; when the server is started in-process,
+ * e.g. from a load test, pass {@code -Dsun.net.httpserver.nodelay=true} to that JVM.
+ */
+
+public class StubWeatherServer implements AutoCloseable {
+
+    public static final String PATH = "/data/3.0/onecall";
+    public static final int DEFAULT_PORT = 8080;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String template;
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+
+    // Payload without coordinates, by excluded sections; there are only 32 combinations
+    private final ConcurrentHashMap<Set<WeatherSection>, String> variants = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Starts a server on all interfaces.
+     *
+     * @param port      The port, or 0 for any free port.
+     * @param template  The payload to serve, e.g. the content of {@code example.json}.
+     * @param latency   The base delay of every response.
+     * @param jitter    The maximum deviation from the base delay, in both directions.
+     * @param errorRate The share of requests answered with HTTP 500, between 0 and 1.
+     * @throws IOException If the port cannot be bound.
+     */
+    public StubWeatherServer(int port, String template, Duration latency, Duration jitter, double errorRate)
+            throws IOException {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1");
+        }
+        // Validate the template once, so a broken file fails at startup rather than on every request
+        OneCallParser.parse(template);
+        this.template = template;
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    /**
+     * @return The One Call endpoint of this server, to be used as base URL of an {@code OpenWeatherProvider}.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + PATH;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            delay();
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"cod\":405,\"message\":\"method not allowed\"}");
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                respond(exchange, 500, "{\"cod\":500,\"message\":\"stub error\"}");
+                return;
+            }
+
+            String lat = null;
+            String lon = null;
+            Set<WeatherSection> excluded = EnumSet.noneOf(WeatherSection.class);
+            URI uri = exchange.getRequestURI();
+            String query = uri.getRawQuery() == null ? "" : uri.getRawQuery();
+            for (String parameter : query.split("&")) {
+                int eq = parameter.indexOf('=');
+                String name = eq < 0 ? parameter : parameter.substring(0, eq);
+                String value = eq < 0 ? "" : parameter.substring(eq + 1);
+                switch (name) {
+                    case "lat" -> lat = value;
+                    case "lon" -> lon = value;
+                    case "exclude" -> {
+                        for (String key : value.split("%2C|,")) {
+                            for (WeatherSection section : WeatherSection.values()) {
+                                if (section.key().equals(key)) {
+                                    excluded.add(section);
+                                }
+                            }
+                        }
+                    }
+                    default -> {
+                        // appid, units, lang: ignored
+                    }
+                }
+            }
+            if (!isNumber(lat) || !isNumber(lon)) {
+                respond(exchange, 400, "{\"cod\":\"400\",\"message\":\"wrong latitude or longitude\"}");
+                return;
+            }
+            respond(exchange, 200, "{\"lat\":" + lat + ",\"lon\":" + lon + variants.computeIfAbsent(excluded, this::variant));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Builds the template without the excluded sections and without its coordinates.
+     *
+     * @return The rest of the payload starting with the comma before {@code "timezone"}.
+     */
+    private String variant(Set<WeatherSection> excluded) {
+        // Merging an empty update removes the merged sections
+        String payload = OneCallParser.merge(template, "{}", excluded);
+        int timezone = payload.indexOf(",\"timezone\"");
+        return timezone < 0 ? "}" : payload.substring(timezone);
+    }
+
+    private void delay() {
+        long millis = latency.toMillis();
+        long jitterMillis = jitter.toMillis();
+        if (jitterMillis > 0) {
+            millis += ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1);
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static boolean isNumber(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // This process only runs the server, so the JVM-wide setting is safe here; it is read when the server starts
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = DEFAULT_PORT;
+        Duration latency = Duration.ofMillis(50);
+        Duration jitter = Duration.ofMillis(20);
+        double errorRate = 0;
+        Path payload = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--latency" -> latency = Duration.ofMillis(Long.parseLong(args[i + 1]));
+                case "--jitter" -> jitter = Duration.ofMillis(Long.parseLong(args[i + 1]));
+                case "--error-rate" -> errorRate = Double.parseDouble(args[i + 1]);
+                case "--payload" -> payload = Path.of(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        StubWeatherServer server = new StubWeatherServer(port, loadTemplate(payload), latency, jitter, errorRate);
+        System.out.println("Serving " + server.getBaseUrl());
+        long lastRequests = 0;
+        while (true) {
+            Thread.sleep(10_000);
+            long total = server.getRequestCount();
+            if (total != lastRequests) {
+                System.out.printf("%d requests (%.0f/s), %d errors%n", total, (total - lastRequests) / 10.0,
+                        server.getErrorCount());
+                lastRequests = total;
+            }
+        }
+    }
+
+    /**
+     * Loads the payload to serve: the given file, else {@code example.json} in the working directory or on the classpath.
+     */
+    private static String loadTemplate(Path payload) throws IOException {
+        if (payload == null && Files.exists(Path.of("example.json"))) {
+            payload = Path.of("example.json");
+        }
+        if (payload != null) {
+            return Files.readString(payload);
+        }
+        try (InputStream in = StubWeatherServer.class.getResourceAsStream("/example.json")) {
+            if (in == null) {
+                throw new IOException("No payload: pass --payload or run from the project directory");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
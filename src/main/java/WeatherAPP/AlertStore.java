@@ -0,0 +1,376 @@
+package WeatherAPP;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The AlertStore class collects the weather alerts of every fetched location and tells subscribers what changed.
+ *
+ * The same alert is usually reported by every location in the affected region, so alerts are deduplicated by
+ * sender, event, start and end. An alert is active while at least one location reports it and it has not ended.
+ * Each location remembers the alerts it reported last; a refresh that reports the same alerts again is
+ * recognized by comparing the two lists and costs nothing else. Otherwise only the alerts that appeared or
+ * disappeared at that location are touched, so the work per refresh depends on the number of changes rather
+ * than on the number of active alerts or locations.
+ *
+ * Active alerts are indexed by the locations reporting them (in a {@link SpatialIndex}) and by their end,
+ * so ended alerts are dropped without scanning and queries by region and time window only visit matching
+ * locations. Subscribers receive {@link Change}s through their own bounded queue; publishing never blocks,
+ * and a subscriber that falls behind loses changes (see {@link Subscription#getDropped()}) rather than
+ * slowing down the fetching threads. All methods are thread-safe.
+ */
+
+public class AlertStore {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    /**
+     * The identity of an alert; two reports with the same key are the same alert.
+     */
+    public record Key(String senderName, String event, long start, long end) {
+
+        static Key of(OneCallData.Alert alert) {
+            return new Key(alert.senderName(), alert.event(), alert.start(), alert.end());
+        }
+    }
+
+    /**
+     * An active alert.
+     *
+     * @param alert     The alert as last reported.
+     * @param firstSeen The time the alert was first reported, in epoch milliseconds.
+     * @param changedAt The time the alert was first reported or its text last changed, in epoch milliseconds.
+     * @param locations The number of locations reporting the alert.
+     */
+    public record ActiveAlert(OneCallData.Alert alert, long firstSeen, long changedAt, int locations) {
+    }
+
+    /**
+     * What happened to an alert.
+     */
+    public enum Kind {
+        /** Reported for the first time. */
+        NEW,
+        /** Reported again with a different description or different tags. */
+        UPDATED,
+        /** Ended, or no longer reported by any location. */
+        CLEARED
+    }
+
+    /**
+     * A change delivered to subscribers.
+     *
+     * @param kind  What happened.
+     * @param alert The alert after the change; for {@link Kind#CLEARED} the alert as last reported.
+     */
+    public record Change(Kind kind, ActiveAlert alert) {
+    }
+
+    /**
+     * The mutable state of an active alert; only accessed while holding the store's lock.
+     */
+    private static final class Entry {
+        private OneCallData.Alert alert;
+        private final long firstSeen;
+        private long changedAt;
+        private final Set<WeatherCache.GridKey> locations = new HashSet<>();
+
+        private Entry(OneCallData.Alert alert, long now) {
+            this.alert = alert;
+            this.firstSeen = now;
+            this.changedAt = now;
+        }
+
+        private ActiveAlert snapshot() {
+            return new ActiveAlert(alert, firstSeen, changedAt, locations.size());
+        }
+    }
+
+    private final double gridDegrees;
+    private final Map<Key, Entry> active = new HashMap<>();
+    private final Map<WeatherCache.GridKey, List<OneCallData.Alert>> reported = new HashMap<>();
+    private final SpatialIndex<WeatherCache.GridKey> locationIndex = new SpatialIndex<>();
+    private final TreeMap<Long, Set<Key>> byEnd = new TreeMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a store with the grid of the {@link WeatherCache}.
+     */
+    public AlertStore() {
+        this(WeatherCache.DEFAULT_GRID_DEGREES);
+    }
+
+    /**
+     * @param gridDegrees The grid size in degrees that coordinates are rounded to.
+     */
+    public AlertStore(double gridDegrees) {
+        if (gridDegrees <= 0) {
+            throw new IllegalArgumentException("gridDegrees must be positive");
+        }
+        this.gridDegrees = gridDegrees;
+    }
+
+    /**
+     * Takes the alerts a location currently reports. Alerts the location reported before but no longer does
+     * are withdrawn for it; alerts that have already ended are ignored.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param alerts    All alerts of the location; empty if it has none.
+     */
+    public void ingest(double latitude, double longitude, List<OneCallData.Alert> alerts) {
+        ingest(latitude, longitude, alerts, System.currentTimeMillis());
+    }
+
+    synchronized void ingest(double latitude, double longitude, List<OneCallData.Alert> alerts, long now) {
+        expire(now);
+        WeatherCache.GridKey location = keyFor(latitude, longitude);
+        List<OneCallData.Alert> previous = reported.getOrDefault(location, List.of());
+        if (previous.equals(alerts)) {
+            return;
+        }
+
+        Set<Key> current = new HashSet<>();
+        for (OneCallData.Alert alert : alerts) {
+            Key key = Key.of(alert);
+            if (alert.end() * 1000 <= now || !current.add(key)) {
+                continue;
+            }
+            Entry entry = active.get(key);
+            if (entry == null) {
+                entry = new Entry(alert, now);
+                active.put(key, entry);
+                byEnd.computeIfAbsent(key.end(), end -> new HashSet<>()).add(key);
+                entry.locations.add(location);
+                publish(Kind.NEW, entry.snapshot());
+            } else {
+                entry.locations.add(location);
+                if (!entry.alert.equals(alert)) {
+                    entry.alert = alert;
+                    entry.changedAt = now;
+                    publish(Kind.UPDATED, entry.snapshot());
+                }
+            }
+        }
+        for (OneCallData.Alert alert : previous) {
+            Key key = Key.of(alert);
+            if (!current.contains(key)) {
+                withdraw(key, location);
+            }
+        }
+
+        boolean wasIndexed = !previous.isEmpty();
+        if (current.isEmpty()) {
+            reported.remove(location);
+            if (wasIndexed) {
+                locationIndex.remove(location.latitudeCell() * gridDegrees, location.longitudeCell() * gridDegrees,
+                        location);
+            }
+        } else {
+            reported.put(location, List.copyOf(alerts));
+            if (!wasIndexed) {
+                locationIndex.put(location.latitudeCell() * gridDegrees, location.longitudeCell() * gridDegrees,
+                        location);
+            }
+        }
+    }
+
+    /**
+     * Removes a location from an alert and clears the alert if no location reports it anymore.
+     */
+    private void withdraw(Key key, WeatherCache.GridKey location) {
+        Entry entry = active.get(key);
+        if (entry != null && entry.locations.remove(location) && entry.locations.isEmpty()) {
+            remove(key);
+            publish(Kind.CLEARED, entry.snapshot());
+        }
+    }
+
+    private void remove(Key key) {
+        active.remove(key);
+        Set<Key> ending = byEnd.get(key.end());
+        if (ending != null) {
+            ending.remove(key);
+            if (ending.isEmpty()) {
+                byEnd.remove(key.end());
+            }
+        }
+    }
+
+    /**
+     * Clears every alert that has ended, visiting only those.
+     */
+    private void expire(long now) {
+        long nowSeconds = now / 1000;
+        while (!byEnd.isEmpty() && byEnd.firstKey() <= nowSeconds) {
+            for (Key key : byEnd.pollFirstEntry().getValue()) {
+                Entry entry = active.remove(key);
+                if (entry != null) {
+                    // The locations keep the alert in their last report until they report again
+                    publish(Kind.CLEARED, entry.snapshot());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return All active alerts.
+     */
+    public List<ActiveAlert> getActive() {
+        return getActive(System.currentTimeMillis());
+    }
+
+    synchronized List<ActiveAlert> getActive(long now) {
+        expire(now);
+        List<ActiveAlert> alerts = new ArrayList<>(active.size());
+        for (Entry entry : active.values()) {
+            alerts.add(entry.snapshot());
+        }
+        return alerts;
+    }
+
+    /**
+     * Returns the active alerts reported by locations within a bounding box that are in effect at some point
+     * of a time window.
+     *
+     * @param minLatitude  The southern edge.
+     * @param minLongitude The western edge.
+     * @param maxLatitude  The northern edge.
+     * @param maxLongitude The eastern edge.
+     * @param from         The start of the window in Unix seconds.
+     * @param to           The end of the window in Unix seconds.
+     * @return The matching alerts, each once.
+     */
+    public synchronized List<ActiveAlert> getActive(double minLatitude, double minLongitude, double maxLatitude,
+                                                    double maxLongitude, long from, long to) {
+        expire(System.currentTimeMillis());
+        Set<Key> seen = new HashSet<>();
+        List<ActiveAlert> alerts = new ArrayList<>();
+        for (WeatherCache.GridKey location : locationIndex.withinBox(minLatitude, minLongitude, maxLatitude,
+                maxLongitude)) {
+            for (OneCallData.Alert alert : reported.getOrDefault(location, List.of())) {
+                Key key = Key.of(alert);
+                Entry entry = active.get(key);
+                if (entry != null && alert.start() <= to && alert.end() >= from && seen.add(key)) {
+                    alerts.add(entry.snapshot());
+                }
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Returns the active alerts of a location, as reported by it last.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return The alerts; empty if the location has none or has not been reported yet.
+     */
+    public synchronized List<ActiveAlert> getActive(double latitude, double longitude) {
+        expire(System.currentTimeMillis());
+        List<ActiveAlert> alerts = new ArrayList<>();
+        for (OneCallData.Alert alert : reported.getOrDefault(keyFor(latitude, longitude), List.of())) {
+            Entry entry = active.get(Key.of(alert));
+            if (entry != null) {
+                alerts.add(entry.snapshot());
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Subscribes to changes from now on.
+     *
+     * @param capacity    The maximum number of undelivered changes; further changes are dropped.
+     * @param onAvailable Called on the publishing thread when the queue was empty and a change was added,
+     *                    e.g. to schedule draining it on another thread; must not block. May be {@code null}.
+     * @return The subscription.
+     */
+    public Subscription subscribe(int capacity, Runnable onAvailable) {
+        Subscription subscription = new Subscription(capacity, onAvailable);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    private void publish(Kind kind, ActiveAlert alert) {
+        Change change = new Change(kind, alert);
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(change);
+        }
+    }
+
+    private WeatherCache.GridKey keyFor(double latitude, double longitude) {
+        return new WeatherCache.GridKey(Math.round(latitude / gridDegrees), Math.round(longitude / gridDegrees));
+    }
+
+    /**
+     * A subscriber's queue of changes.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final ArrayBlockingQueue<Change> queue;
+        private final Runnable onAvailable;
+        private final AtomicBoolean signalled = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+
+        private Subscription(int capacity, Runnable onAvailable) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.onAvailable = onAvailable;
+        }
+
+        private void offer(Change change) {
+            if (!queue.offer(change)) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (onAvailable != null && signalled.compareAndSet(false, true)) {
+                onAvailable.run();
+            }
+        }
+
+        /**
+         * @return The oldest undelivered change, or {@code null} if there is none.
+         */
+        public Change poll() {
+            return queue.poll();
+        }
+
+        /**
+         * Takes all undelivered changes. The next change after this call signals {@code onAvailable} again.
+         *
+         * @return The changes in the order they happened.
+         */
+        public List<Change> drain() {
+            signalled.set(false);
+            List<Change> changes = new ArrayList<>(queue.size());
+            queue.drainTo(changes);
+            return changes;
+        }
+
+        /**
+         * @return The number of changes dropped because the queue was full. A subscriber that sees this grow
+         *         should read the current state with {@link AlertStore#getActive()}.
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * Stops receiving changes.
+         */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package WeatherAPP;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * The AutoRefresher class keeps tracked locations up to date in the background.
+ * Every section has its own cadence (e.g. {@code current} every few minutes, {@code daily} every few hours)
+ * and only the sections that are due are fetched, using the API's {@code exclude} parameter.
+ * Sections due within a short window are fetched together to save calls, and all delays are jittered,
+ * so many dashboards started at the same time do not hit the API at the same instant.
+ */
+
+public class AutoRefresher implements AutoCloseable {
+
+    public static final double DEFAULT_JITTER = 0.1;
+
+    private final WeatherAPI weatherAPI;
+    private final WeatherCache cache;
+    private final Map<WeatherSection, Duration> cadences;
+    private final double jitter;
+    private final BiConsumer<Location, String> listener;
+    private final Map<Location, ScheduledFuture<?>> tracked = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-auto-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a refresher with the default cadences: {@code current}, {@code minutely} and {@code alerts} every
+     * 15 minutes, {@code hourly} every hour and {@code daily} every 6 hours. The minutely and hourly sections
+     * feed the history of the {@link WeatherAPI}, which only grows while they are fetched; their cadences are
+     * multiples of 15 minutes, so they are usually fetched in the same calls as the other sections.
+     *
+     * @param weatherAPI The API to refresh through; it must have a cache, which tracks what was fetched when.
+     * @param listener   Receives the location and its merged payload after every successful refresh.
+     */
+    public AutoRefresher(WeatherAPI weatherAPI, BiConsumer<Location, String> listener) {
+        this(weatherAPI, Map.of(
+                WeatherSection.CURRENT, Duration.ofMinutes(15),
+                WeatherSection.MINUTELY, Duration.ofMinutes(15),
+                WeatherSection.ALERTS, Duration.ofMinutes(15),
+                WeatherSection.HOURLY, Duration.ofHours(1),
+                WeatherSection.DAILY, Duration.ofHours(6)), DEFAULT_JITTER, listener);
+    }
+
+    /**
+     * Creates a refresher.
+     *
+     * @param weatherAPI The API to refresh through; it must have a cache, which tracks what was fetched when.
+     * @param cadences   How often each section is refreshed; sections not contained are never refreshed.
+     * @param jitter     The share of a delay (0 to 1) by which it is randomly shortened or lengthened.
+     * @param listener   Receives the location and its merged payload after every successful refresh.
+     */
+    public AutoRefresher(WeatherAPI weatherAPI, Map<WeatherSection, Duration> cadences, double jitter,
+                         BiConsumer<Location, String> listener) {
+        if (weatherAPI.getCache() == null) {
+            throw new IllegalArgumentException("AutoRefresher requires a WeatherAPI with a cache");
+        }
+        if (cadences.isEmpty() || jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("Invalid refresh configuration");
+        }
+        this.weatherAPI = weatherAPI;
+        this.cache = weatherAPI.getCache();
+        this.cadences = new EnumMap<>(cadences);
+        this.jitter = jitter;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts refreshing a location. The first check runs after a random share of the shortest cadence,
+     * which spreads out the first calls of locations (and dashboards) started together.
+     *
+     * @param location The location.
+     */
+    public void track(Location location) {
+        tracked.computeIfAbsent(location, key -> {
+            long initialDelay = (long) (shortestCadence().toMillis() * jitter * ThreadLocalRandom.current().nextDouble());
+            return executor.schedule(() -> refresh(key), initialDelay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Stops refreshing a location.
+     *
+     * @param location The location.
+     */
+    public void untrack(Location location) {
+        ScheduledFuture<?> next = tracked.remove(location);
+        if (next != null) {
+            next.cancel(false);
+        }
+    }
+
+    /**
+     * Stops refreshing all locations.
+     */
+    public void untrackAll() {
+        for (Location location : Set.copyOf(tracked.keySet())) {
+            untrack(location);
+        }
+    }
+
+    /**
+     * Fetches the due sections of a location and schedules its next check.
+     *
+     * @param location The location.
+     */
+    private void refresh(Location location) {
+        if (!tracked.containsKey(location)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<WeatherSection> due = EnumSet.noneOf(WeatherSection.class);
+        long nextDue = Long.MAX_VALUE;
+        for (Map.Entry<WeatherSection, Duration> entry : cadences.entrySet()) {
+            long cadence = entry.getValue().toMillis();
+            long dueAt = cache.getFetchedAt(location.latitude(), location.longitude(), entry.getKey()) + cadence;
+            // Sections due within the jitter window are fetched now as well, sharing one call
+            if (dueAt - now <= cadence * jitter) {
+                due.add(entry.getKey());
+                dueAt = now + cadence;
+            }
+            nextDue = Math.min(nextDue, dueAt);
+        }
+
+        if (due.isEmpty()) {
+            schedule(location, nextDue - now);
+            return;
+        }
+        long delay = nextDue - now;
+        weatherAPI.refreshSections(location.latitude(), location.longitude(), due)
+                .whenComplete((payload, e) -> {
+                    if (payload != null) {
+                        listener.accept(location, payload);
+                    }
+                    schedule(location, delay);
+                });
+    }
+
+    private void schedule(Location location, long delayMillis) {
+        long jittered = (long) (delayMillis * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+        tracked.computeIfPresent(location, (key, previous) ->
+                executor.schedule(() -> refresh(key), Math.max(1000, jittered), TimeUnit.MILLISECONDS));
+    }
+
+    private Duration shortestCadence() {
+        Duration shortest = null;
+        for (Duration cadence : cadences.values()) {
+            if (shortest == null || cadence.compareTo(shortest) < 0) {
+                shortest = cadence;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * Stops all refreshes.
+     */
+    @Override
+    public void close() {
+        tracked.clear();
+        executor.shutdownNow();
+    }
+}
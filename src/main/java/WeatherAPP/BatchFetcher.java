@@ -0,0 +1,202 @@
+package WeatherAPP;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * The BatchFetcher class fetches weather data for many locations concurrently.
+ * Every location is fetched on its own virtual thread, a semaphore caps the number of requests in flight,
+ * and each request has its own deadline. When the deadline passes, the request is cancelled in the
+ * {@link WeatherAPI}: unless another caller waits for the same location, a throttled or retried call is dropped
+ * and the HTTP exchange is aborted, so the cap also bounds the requests actually in flight.
+ * Results are handed to a callback as soon as they complete, in completion order rather than input order.
+ */
+
+public class BatchFetcher implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(15);
+
+    private final WeatherAPI weatherAPI;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final Duration deadline;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * The outcome of fetching one location.
+     *
+     * @param location      The location.
+     * @param payload       The JSON payload, or {@code null} if the fetch failed.
+     * @param error         The reason of the failure, or {@code null} on success or if the API returned no data.
+     * @param durationNanos The time from starting the request to its completion, excluding time spent waiting for a permit.
+     */
+    public record Result(Location location, String payload, Throwable error, long durationNanos) {
+
+        public boolean isSuccess() {
+            return payload != null;
+        }
+    }
+
+    /**
+     * Creates a fetcher with the default concurrency cap and deadline.
+     *
+     * @param weatherAPI The API used for every request; its cache and connection pool are shared by the batch.
+     */
+    public BatchFetcher(WeatherAPI weatherAPI) {
+        this(weatherAPI, DEFAULT_MAX_CONCURRENCY, DEFAULT_DEADLINE);
+    }
+
+    /**
+     * Creates a fetcher.
+     *
+     * @param weatherAPI     The API used for every request; its cache and connection pool are shared by the batch.
+     * @param maxConcurrency The maximum number of requests in flight at the same time.
+     * @param deadline       The maximum time a single request may take once it has been started;
+     *                       then it is cancelled and fails with a {@link TimeoutException}.
+     */
+    public BatchFetcher(WeatherAPI weatherAPI, int maxConcurrency, Duration deadline) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.weatherAPI = weatherAPI;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.deadline = deadline;
+    }
+
+    /**
+     * Fetches all locations concurrently. The callback is invoked from the fetching threads,
+     * possibly concurrently, so it has to be thread-safe.
+     *
+     * @param locations The locations to fetch.
+     * @param onResult  Receives the result of every location as soon as it is available.
+     * @return A future that completes once every location has been handed to the callback.
+     */
+    public CompletableFuture<Void> fetchAll(Collection<Location> locations, Consumer<Result> onResult) {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            tasks.add(CompletableFuture.runAsync(() -> onResult.accept(fetch(location)), executor));
+        }
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Fetches all locations and waits until every result has been collected.
+     *
+     * @param locations The locations to fetch.
+     * @return The results in completion order.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public List<Result> fetchAllAndWait(Collection<Location> locations) throws InterruptedException {
+        List<Result> results = new ArrayList<>(locations.size());
+        try {
+            fetchAll(locations, result -> {
+                synchronized (results) {
+                    results.add(result);
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Fetches locations read lazily from an iterator, e.g. one backed by a file. A location is only taken from the
+     * iterator once a permit is free, so no more than the concurrency cap of locations are held at any time
+     * and memory use stays constant regardless of the number of locations. Blocks until all results were handed
+     * to the callback, which is invoked from the fetching threads and has to be thread-safe.
+     *
+     * @param locations The locations to fetch.
+     * @param onResult  Receives the result of every location as soon as it is available.
+     * @throws InterruptedException       If the calling thread is interrupted while waiting.
+     * @throws RejectedExecutionException If the fetcher has been closed.
+     */
+    public void fetchEach(Iterator<Location> locations, Consumer<Result> onResult) throws InterruptedException {
+        while (locations.hasNext()) {
+            permits.acquire();
+            Location location = locations.next();
+            try {
+                executor.execute(() -> {
+                    try {
+                        onResult.accept(fetchWithPermit(location));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed meanwhile; the task never runs, so its permit would never be released
+                permits.release();
+                throw e;
+            }
+        }
+        // All permits are free again once the last fetch has completed
+        permits.acquire(maxConcurrency);
+        permits.release(maxConcurrency);
+    }
+
+    /**
+     * Fetches a single location on the current (virtual) thread, waiting for a permit first.
+     *
+     * @param location The location.
+     * @return The result.
+     */
+    private Result fetch(Location location) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(location, null, e, 0);
+        }
+        try {
+            return fetchWithPermit(location);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Fetches a single location on the current thread; the caller holds a permit.
+     *
+     * @param location The location.
+     * @return The result.
+     */
+    private Result fetchWithPermit(Location location) {
+        long start = System.nanoTime();
+        CompletableFuture<String> request = weatherAPI.getWeatherDataAsync(location.latitude(), location.longitude());
+        try {
+            String payload = request.get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+            return new Result(location, payload, null, System.nanoTime() - start);
+        } catch (TimeoutException e) {
+            request.cancel(true);
+            return new Result(location, null, e, System.nanoTime() - start);
+        } catch (ExecutionException e) {
+            return new Result(location, null, e.getCause(), System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            request.cancel(true);
+            Thread.currentThread().interrupt();
+            return new Result(location, null, e, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Stops all fetches that are still running or waiting for a permit.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
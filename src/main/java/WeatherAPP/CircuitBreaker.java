@@ -0,0 +1,133 @@
+package WeatherAPP;
+
+import java.time.Duration;
+
+/**
+ * The CircuitBreaker class stops calls to an endpoint that keeps failing, so a degraded upstream API is not
+ * flooded with requests (and retries) that are bound to fail, and callers fall back to cached data at once
+ * instead of waiting for a timeout.
+ *
+ * After a number of consecutive failures the circuit opens and rejects all calls. Once the open period has
+ * passed, a single probe call is let through: if it succeeds the circuit closes again, otherwise it opens for
+ * twice as long as before, up to a maximum. All methods are thread-safe.
+ */
+
+public class CircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_MAX_OPEN_DURATION = Duration.ofMinutes(5);
+
+    /**
+     * The state of a circuit.
+     */
+    public enum State {
+        /** Calls are made. */
+        CLOSED,
+        /** Calls are rejected until the open period has passed. */
+        OPEN,
+        /** A single probe call decides whether the circuit closes or opens again. */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final long maxOpenNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private long currentOpenNanos;
+    private boolean probing;
+
+    /**
+     * Creates a circuit breaker with the default threshold and open durations.
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_MAX_OPEN_DURATION);
+    }
+
+    /**
+     * @param failureThreshold The number of consecutive failures that opens the circuit.
+     * @param openDuration     How long the circuit stays open after it opened for the first time.
+     * @param maxOpenDuration  The longest the circuit stays open after repeated failed probes.
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Duration maxOpenDuration) {
+        if (failureThreshold <= 0 || openDuration.isNegative() || maxOpenDuration.compareTo(openDuration) < 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker configuration");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.maxOpenNanos = maxOpenDuration.toNanos();
+        this.currentOpenNanos = openNanos;
+    }
+
+    /**
+     * Asks whether a call may be made. A granted call has to be reported with {@link #onSuccess()},
+     * {@link #onFailure()} or {@link #release()}.
+     *
+     * @return {@code true} if the call may be made.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < currentOpenNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            default:
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    /**
+     * Gives back a granted call that was not made, e.g. because the quota governor refused it.
+     */
+    public synchronized void release() {
+        probing = false;
+    }
+
+    /**
+     * Reports a call that reached the endpoint and got a regular answer; closes the circuit.
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        probing = false;
+        currentOpenNanos = openNanos;
+    }
+
+    /**
+     * Reports a call that failed because of the endpoint, e.g. a timeout or an HTTP 503.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            currentOpenNanos = Math.min(maxOpenNanos, currentOpenNanos * 2);
+            open();
+        } else if (state == State.CLOSED && ++failures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probing = false;
+    }
+
+    /**
+     * @return The current state; an open circuit whose open period has passed is reported as open
+     *         until the next call is asked for.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,190 @@
+package WeatherAPP;
+
+/**
+ * The Downsampler class reduces a time series to roughly as many points as can be told apart on screen,
+ * while keeping its visual shape. Both methods read a range of the input arrays and write into caller-provided
+ * output arrays, so a chart can reuse its buffers on every redraw without allocating.
+ *
+ * {@link #minMax} keeps the minimum and maximum of every time bucket, e.g. one bucket per pixel column,
+ * so peaks are never lost and gaps stay visible. {@link #lttb} (Largest-Triangle-Three-Buckets) picks the one point
+ * per bucket that spans the largest triangle with its neighbours, which gives smoother lines with fewer points.
+ */
+
+public final class Downsampler {
+
+    /**
+     * The downsampling method.
+     */
+    public enum Mode {
+        MIN_MAX("Min/Max"), LTTB("LTTB");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private Downsampler() {
+    }
+
+    /**
+     * Splits a time range into equally long buckets and keeps the minimum and the maximum value of each bucket,
+     * in the order they occur. A bucket that only contains missing values yields a single {@code NaN} point,
+     * so the gap is kept; empty buckets yield nothing.
+     *
+     * @param dt        The timestamps, increasing.
+     * @param values    The values; {@code NaN} where missing.
+     * @param from      The first index to read, inclusive.
+     * @param to        The last index to read, exclusive.
+     * @param start     The start of the first bucket.
+     * @param end       The end of the last bucket.
+     * @param buckets   The number of buckets.
+     * @param outDt     Receives the timestamps; needs room for {@code 2 * buckets} points.
+     * @param outValues Receives the values; needs room for {@code 2 * buckets} points.
+     * @return The number of points written.
+     */
+    public static int minMax(long[] dt, float[] values, int from, int to, long start, long end, int buckets,
+                             long[] outDt, float[] outValues) {
+        double bucketLength = Math.max(1, end - start) / (double) buckets;
+        int count = 0;
+        int i = from;
+        while (i < to) {
+            int bucket = (int) Math.min(buckets - 1, Math.max(0, (dt[i] - start) / bucketLength));
+            long bucketEnd = bucket == buckets - 1 ? Long.MAX_VALUE : start + (long) Math.ceil((bucket + 1) * bucketLength);
+            int minIndex = -1;
+            int maxIndex = -1;
+            int first = i;
+            for (; i < to && dt[i] < bucketEnd; i++) {
+                float value = values[i];
+                if (Float.isNaN(value)) {
+                    continue;
+                }
+                if (minIndex < 0 || value < values[minIndex]) {
+                    minIndex = i;
+                }
+                if (maxIndex < 0 || value > values[maxIndex]) {
+                    maxIndex = i;
+                }
+            }
+            if (i == first) {
+                // Rounding put the point before the computed end; take it on its own
+                i++;
+                minIndex = Float.isNaN(values[first]) ? -1 : first;
+                maxIndex = minIndex;
+            }
+            if (minIndex < 0) {
+                outDt[count] = dt[first];
+                outValues[count++] = Float.NaN;
+            } else {
+                int a = Math.min(minIndex, maxIndex);
+                int b = Math.max(minIndex, maxIndex);
+                outDt[count] = dt[a];
+                outValues[count++] = values[a];
+                if (b != a) {
+                    outDt[count] = dt[b];
+                    outValues[count++] = values[b];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Selects points with the Largest-Triangle-Three-Buckets algorithm. The first and last point are always kept;
+     * missing values are skipped, so gaps are bridged.
+     *
+     * @param dt        The timestamps, increasing.
+     * @param values    The values; {@code NaN} where missing.
+     * @param from      The first index to read, inclusive.
+     * @param to        The last index to read, exclusive.
+     * @param threshold The number of points to select, at least 3.
+     * @param outDt     Receives the timestamps; needs room for {@code threshold} points.
+     * @param outValues Receives the values; needs room for {@code threshold} points.
+     * @return The number of points written; all points if there are no more than {@code threshold}.
+     */
+    public static int lttb(long[] dt, float[] values, int from, int to, int threshold,
+                           long[] outDt, float[] outValues) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("threshold must be at least 3");
+        }
+        // Leading and trailing missing values cannot be anchors
+        while (from < to && Float.isNaN(values[from])) {
+            from++;
+        }
+        while (to > from && Float.isNaN(values[to - 1])) {
+            to--;
+        }
+        if (to - from <= threshold) {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (!Float.isNaN(values[i])) {
+                    outDt[count] = dt[i];
+                    outValues[count++] = values[i];
+                }
+            }
+            return count;
+        }
+
+        // Timestamps relative to the first point keep the products within double precision
+        long origin = dt[from];
+        double bucketSize = (double) (to - from - 2) / (threshold - 2);
+        int selected = from;
+        int count = 0;
+        outDt[count] = dt[from];
+        outValues[count++] = values[from];
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int bucketStart = from + 1 + (int) (bucket * bucketSize);
+            int bucketEnd = from + 1 + (int) ((bucket + 1) * bucketSize);
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(to, from + 1 + (int) ((bucket + 2) * bucketSize));
+
+            // The average of the next bucket is the third corner of the triangle
+            double averageX = 0;
+            double averageY = 0;
+            int averageCount = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                if (!Float.isNaN(values[i])) {
+                    averageX += dt[i] - origin;
+                    averageY += values[i];
+                    averageCount++;
+                }
+            }
+            if (averageCount == 0) {
+                averageX = dt[to - 1] - origin;
+                averageY = values[to - 1];
+            } else {
+                averageX /= averageCount;
+                averageY /= averageCount;
+            }
+
+            double selectedX = dt[selected] - origin;
+            double selectedY = values[selected];
+            double maxArea = -1;
+            int next = -1;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                if (Float.isNaN(values[i])) {
+                    continue;
+                }
+                double area = Math.abs((selectedX - averageX) * (values[i] - selectedY)
+                        - (selectedX - (dt[i] - origin)) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            if (next >= 0) {
+                selected = next;
+                outDt[count] = dt[selected];
+                outValues[count++] = values[selected];
+            }
+        }
+        outDt[count] = dt[to - 1];
+        outValues[count++] = values[to - 1];
+        return count;
+    }
+}
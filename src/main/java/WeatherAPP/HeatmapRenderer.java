@@ -0,0 +1,246 @@
+package WeatherAPP;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The HeatmapRenderer class rasterizes point samples, e.g. the temperatures of many stations, into an ARGB pixel
+ * buffer by inverse distance weighting. It uses no JavaFX classes and is meant to run on a worker thread;
+ * the finished buffer is handed to the FX thread, which copies it into an image in a single call.
+ *
+ * The interpolation is evaluated on a coarse grid every few pixels and bilinearly interpolated in between,
+ * which divides the work per frame by the square of the step. Rows are computed in parallel.
+ * An instance reuses its buffers and renders one frame at a time.
+ */
+
+public class HeatmapRenderer {
+
+    /**
+     * The value shown by the heatmap, with its color scale. All colors are opaque, so the pixels can be
+     * handed over as premultiplied ARGB without conversion.
+     */
+    public enum Layer {
+        TEMPERATURE("Temperatur", "°C", -20, 40,
+                0xFF313695, 0xFF4575B4, 0xFF74ADD1, 0xFFE0F3F8, 0xFFFEE090, 0xFFF46D43, 0xFFA50026),
+        PRECIPITATION("Niederschlag", "mm/h", 0, 10,
+                0xFFF7FBFF, 0xFFC6DBEF, 0xFF6BAED6, 0xFF2171B5, 0xFF08306B, 0xFF54278F);
+
+        private final String label;
+        private final String unit;
+        private final float min;
+        private final float max;
+        private final int[] palette = new int[256];
+
+        Layer(String label, String unit, float min, float max, int... stops) {
+            this.label = label;
+            this.unit = unit;
+            this.min = min;
+            this.max = max;
+            for (int i = 0; i < palette.length; i++) {
+                double position = i / 255.0 * (stops.length - 1);
+                int stop = Math.min((int) position, stops.length - 2);
+                palette[i] = blend(stops[stop], stops[stop + 1], position - stop);
+            }
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public String unit() {
+            return unit;
+        }
+
+        /**
+         * @param value The value in the unit of the layer.
+         * @return The opaque ARGB color of the value; values outside the scale get the color of its end.
+         */
+        public int color(float value) {
+            return palette[paletteIndex(index(value))];
+        }
+
+        /**
+         * @return The position of the value on the palette, unclamped; linear in the value.
+         */
+        float index(float value) {
+            return (value - min) / (max - min) * 255;
+        }
+
+        private static int paletteIndex(float index) {
+            return index <= 0 ? 0 : index >= 255 ? 255 : (int) index;
+        }
+
+        private static int blend(int from, int to, double fraction) {
+            int color = 0xFF000000;
+            for (int shift = 0; shift <= 16; shift += 8) {
+                int a = from >> shift & 0xFF;
+                int b = to >> shift & 0xFF;
+                color |= (int) Math.round(a + (b - a) * fraction) << shift;
+            }
+            return color;
+        }
+    }
+
+    /**
+     * A value at a location.
+     *
+     * @param latitude  The latitude in degrees.
+     * @param longitude The longitude in degrees.
+     * @param value     The value in the unit of the rendered layer; NaN values are ignored.
+     */
+    public record Sample(double latitude, double longitude, float value) {
+    }
+
+    public static final int DEFAULT_STEP = 4;
+
+    private static final int MARKER_COLOR = 0xFF202020;
+
+    private final int width;
+    private final int height;
+    private final int step;
+    private final int coarseWidth;
+    private final int coarseHeight;
+    private final float[] coarse;
+
+    // Sample positions relative to the south-west corner in degrees of latitude; longitudes are scaled by the
+    // cosine of the latitude, so that distances are proportional to kilometers
+    private float[] sampleX = new float[0];
+    private float[] sampleY = new float[0];
+    private float[] sampleValue = new float[0];
+
+    public HeatmapRenderer(int width, int height) {
+        this(width, height, DEFAULT_STEP);
+    }
+
+    /**
+     * @param width  The width of the rendered frames in pixels.
+     * @param height The height of the rendered frames in pixels.
+     * @param step   The distance of the interpolated grid points in pixels; 1 interpolates every pixel.
+     */
+    public HeatmapRenderer(int width, int height, int step) {
+        if (width <= 0 || height <= 0 || step <= 0) {
+            throw new IllegalArgumentException("width, height and step must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.step = step;
+        this.coarseWidth = (width - 1) / step + 2;
+        this.coarseHeight = (height - 1) / step + 2;
+        this.coarse = new float[coarseWidth * coarseHeight];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Renders the samples within a bounding box. The box is drawn in an equirectangular projection, north up;
+     * every sample is marked with a small dot. Without samples the frame is transparent.
+     *
+     * @param samples      The samples; ones outside the box still contribute to the interpolation near its edges.
+     * @param minLatitude  The southern edge.
+     * @param minLongitude The western edge.
+     * @param maxLatitude  The northern edge.
+     * @param maxLongitude The eastern edge.
+     * @param layer        The color scale.
+     * @param argb         The target buffer of {@code width * height} premultiplied ARGB pixels, row by row.
+     */
+    public void render(List<Sample> samples, double minLatitude, double minLongitude, double maxLatitude,
+                       double maxLongitude, Layer layer, int[] argb) {
+        if (argb.length < width * height) {
+            throw new IllegalArgumentException("Buffer too small");
+        }
+        double scale = Math.cos(Math.toRadians((minLatitude + maxLatitude) / 2));
+        int count = prepareSamples(samples, minLatitude, minLongitude, scale);
+        if (count == 0) {
+            Arrays.fill(argb, 0, width * height, 0);
+            return;
+        }
+        double degreesPerPixelX = (maxLongitude - minLongitude) / width;
+        double degreesPerPixelY = (maxLatitude - minLatitude) / height;
+
+        // The grid holds palette positions rather than values; both are linear, so interpolating either is the same
+        IntStream.range(0, coarseHeight).parallel().forEach(row -> {
+            float y = (float) (maxLatitude - minLatitude - row * step * degreesPerPixelY);
+            int offset = row * coarseWidth;
+            for (int column = 0; column < coarseWidth; column++) {
+                float x = (float) (column * step * degreesPerPixelX * scale);
+                coarse[offset + column] = layer.index(interpolate(x, y, count));
+            }
+        });
+
+        int[] palette = layer.palette;
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int row = y / step;
+            float fy = (float) (y - row * step) / step;
+            int top = row * coarseWidth;
+            int bottom = top + coarseWidth;
+            int offset = y * width;
+            // Interpolate vertically once per grid column, then step horizontally by a constant increment
+            float left = coarse[top] + (coarse[bottom] - coarse[top]) * fy;
+            for (int column = 0, x = 0; x < width; column++) {
+                float right = coarse[top + column + 1] + (coarse[bottom + column + 1] - coarse[top + column + 1]) * fy;
+                float increment = (right - left) / step;
+                float index = left;
+                for (int end = Math.min(width, x + step); x < end; x++, index += increment) {
+                    argb[offset + x] = palette[Layer.paletteIndex(index)];
+                }
+                left = right;
+            }
+        });
+
+        for (int i = 0; i < count; i++) {
+            int px = (int) (sampleX[i] / scale / degreesPerPixelX);
+            int py = (int) ((maxLatitude - minLatitude - sampleY[i]) / degreesPerPixelY);
+            for (int y = Math.max(0, py - 1); y <= Math.min(height - 1, py + 1); y++) {
+                for (int x = Math.max(0, px - 1); x <= Math.min(width - 1, px + 1); x++) {
+                    argb[y * width + x] = MARKER_COLOR;
+                }
+            }
+        }
+    }
+
+    private int prepareSamples(List<Sample> samples, double minLatitude, double minLongitude, double scale) {
+        if (sampleX.length < samples.size()) {
+            sampleX = new float[samples.size()];
+            sampleY = new float[samples.size()];
+            sampleValue = new float[samples.size()];
+        }
+        int count = 0;
+        for (Sample sample : samples) {
+            if (!Float.isNaN(sample.value())) {
+                sampleX[count] = (float) ((sample.longitude() - minLongitude) * scale);
+                sampleY[count] = (float) (sample.latitude() - minLatitude);
+                sampleValue[count] = sample.value();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inverse distance weighting with power 2, which needs no square root. The loop has no branches,
+     * so the JIT can vectorize it; a grid point on a sample gets a weight that outweighs all others
+     * instead of being special-cased.
+     */
+    private float interpolate(float x, float y, int count) {
+        float[] xs = sampleX;
+        float[] ys = sampleY;
+        float[] values = sampleValue;
+        float weightedSum = 0;
+        float weightSum = 0;
+        for (int i = 0; i < count; i++) {
+            float dx = xs[i] - x;
+            float dy = ys[i] - y;
+            float weight = 1 / (dx * dx + dy * dy + 1e-9f);
+            weightedSum += weight * values[i];
+            weightSum += weight;
+        }
+        return weightedSum / weightSum;
+    }
+}
@@ -0,0 +1,117 @@
+package WeatherAPP;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Histogram class counts non-negative values (e.g. latencies in nanoseconds) in log-linear buckets:
+ * every power of two is split into 8 buckets, so percentiles are exact to within 12.5% at any magnitude.
+ * Recording is lock-free and allocation-free and the memory use is fixed, regardless of the number of values.
+ */
+
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values up to 2^MAX_EXPONENT are counted in their own bucket, larger values in the last one (about 18 minutes in ns)
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates an empty histogram.
+     */
+    public Histogram() {
+    }
+
+    /**
+     * @param value The value to count; negative values are counted as 0.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The largest value counted in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE; // also holds all larger values
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * @param percentile The percentile between 0 and 100, e.g. {@code 99}.
+     * @return The value below or at which the given share of the values lies (the upper bound of its bucket,
+     *         but never more than the largest value), or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The mean of all values, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        long total = count.get();
+        return total == 0 ? 0 : (double) sum.get() / total;
+    }
+
+    /**
+     * Removes all values. Values recorded concurrently may or may not be kept.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,43 @@
+package WeatherAPP;
+
+import java.util.List;
+
+/**
+ * A named geographic location for which weather data can be fetched.
+ *
+ * @param name      The display name of the location.
+ * @param latitude  The latitude in degrees (-90 to 90).
+ * @param longitude The longitude in degrees (-180 to 180).
+ */
+
+public record Location(String name, double latitude, double longitude) {
+
+    // The cities offered in the dashboard's city selection; the first one is the default
+    public static final List<Location> PRESETS = List.of(
+            new Location("Salzburg", 47.8112, 13.0332),
+            new Location("Wien", 48.2082, 16.3738),
+            new Location("Graz", 47.0707, 15.4395),
+            new Location("Innsbruck", 47.2692, 11.4041),
+            new Location("Linz", 48.3069, 14.2858));
+
+    public Location {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Ungültige Koordinaten");
+        }
+    }
+
+    /**
+     * Returns the preset with the given name.
+     *
+     * @param name The name of the preset.
+     * @return The matching preset, or the default preset if there is none with that name.
+     */
+    public static Location preset(String name) {
+        for (Location location : PRESETS) {
+            if (location.name().equals(name)) {
+                return location;
+            }
+        }
+        return PRESETS.get(0);
+    }
+}
@@ -3,8 +3,15 @@ package WeatherAPP;
 import javafx.application.Application;
 
 public class Main {
+
+    private Main() {
+    }
+
     public static void main(String[] args) {
+        // "export" and "replay" run headless without starting the JavaFX toolkit
+        if (args.length > 0 && WeatherCli.isCommand(args[0])) {
+            System.exit(WeatherCli.run(args));
+        }
         Application.launch(WeatherApp.class, args);
     }
 }
-
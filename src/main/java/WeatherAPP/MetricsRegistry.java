@@ -0,0 +1,111 @@
+package WeatherAPP;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The MetricsRegistry class keeps all measurements in memory: a {@link Histogram} per stage and for response sizes,
+ * cache hits and misses and error counts by type. {@link #report()} summarizes them, e.g. for a log line.
+ */
+
+public class MetricsRegistry implements WeatherMetrics {
+
+    private final Map<Stage, Histogram> latencies = new EnumMap<>(Stage.class);
+    private final Histogram responseSizes = new Histogram();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public MetricsRegistry() {
+        // Filled once, so lookups need no synchronization
+        for (Stage stage : Stage.values()) {
+            latencies.put(stage, new Histogram());
+        }
+    }
+
+    @Override
+    public void recordLatency(Stage stage, long nanos) {
+        latencies.get(stage).record(nanos);
+    }
+
+    @Override
+    public void recordResponseSize(long chars) {
+        responseSizes.record(chars);
+    }
+
+    @Override
+    public void recordCacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    @Override
+    public void countError(String type) {
+        errors.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    /**
+     * @param stage The stage.
+     * @return The latencies of the stage in nanoseconds.
+     */
+    public Histogram getLatencies(Stage stage) {
+        return latencies.get(stage);
+    }
+
+    /**
+     * @return The response body lengths in characters.
+     */
+    public Histogram getResponseSizes() {
+        return responseSizes;
+    }
+
+    /**
+     * @return The share of cache lookups that were hits, between 0 and 1.
+     */
+    public double getCacheHitRatio() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return The error counts by type, sorted by type.
+     */
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    /**
+     * @return A multi-line summary with count, p50, p99 and maximum of every stage that was measured.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = latencies.get(stage);
+            if (histogram.getCount() > 0) {
+                report.append(String.format("%-9s n=%-7d p50=%8.2f ms  p99=%8.2f ms  max=%8.2f ms%n", stage,
+                        histogram.getCount(), millis(histogram.getPercentile(50)),
+                        millis(histogram.getPercentile(99)), millis(histogram.getMax())));
+            }
+        }
+        if (responseSizes.getCount() > 0) {
+            report.append(String.format("%-9s n=%-7d p50=%8d ch  p99=%8d ch  max=%8d ch%n", "SIZE",
+                    responseSizes.getCount(), responseSizes.getPercentile(50), responseSizes.getPercentile(99),
+                    responseSizes.getMax()));
+        }
+        if (cacheHits.sum() + cacheMisses.sum() > 0) {
+            report.append(String.format("cache hit ratio %.1f%%%n", getCacheHitRatio() * 100));
+        }
+        getErrorCounts().forEach((type, count) -> report.append("errors ").append(type).append(": ").append(count)
+                .append(System.lineSeparator()));
+        return report.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,132 @@
+package WeatherAPP;
+
+import java.util.List;
+
+/**
+ * The OneCallData class holds a decoded One Call 3.0 response in compact, typed form.
+ * Forecast series are stored column-wise in primitive arrays (one array per field, one element per entry),
+ * so a decoded response consists of a handful of arrays instead of thousands of small objects.
+ *
+ * Sections that were not requested from the {@link OneCallParser} or not contained in the payload are {@code null}.
+ * Temperatures are in Kelvin and speeds in meters per second, as delivered by the API.
+ * Numeric fields missing from a payload are {@code NaN} (floating point) or {@code -1} (integers).
+ */
+
+public final class OneCallData {
+
+    private final double latitude;
+    private final double longitude;
+    private final String timezone;
+    private final int timezoneOffset;
+    private final Current current;
+    private final Minutely minutely;
+    private final Hourly hourly;
+    private final Daily daily;
+    private final List<Alert> alerts;
+
+    OneCallData(double latitude, double longitude, String timezone, int timezoneOffset,
+                Current current, Minutely minutely, Hourly hourly, Daily daily, List<Alert> alerts) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timezone = timezone;
+        this.timezoneOffset = timezoneOffset;
+        this.current = current;
+        this.minutely = minutely;
+        this.hourly = hourly;
+        this.daily = daily;
+        this.alerts = alerts;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public String getTimezone() {
+        return timezone;
+    }
+
+    /**
+     * @return The shift in seconds from UTC of the location's timezone.
+     */
+    public int getTimezoneOffset() {
+        return timezoneOffset;
+    }
+
+    public Current getCurrent() {
+        return current;
+    }
+
+    public Minutely getMinutely() {
+        return minutely;
+    }
+
+    public Hourly getHourly() {
+        return hourly;
+    }
+
+    public Daily getDaily() {
+        return daily;
+    }
+
+    /**
+     * @return The active alerts; empty if the section was requested but the location has no alerts,
+     *         {@code null} if the section was not requested.
+     */
+    public List<Alert> getAlerts() {
+        return alerts;
+    }
+
+    /**
+     * The current weather conditions.
+     */
+    public record Current(long dt, long sunrise, long sunset, float temp, float feelsLike, int pressure,
+                          int humidity, float dewPoint, float uvi, int clouds, int visibility, float windSpeed,
+                          int windDeg, float windGust, float rain1h, float snow1h, int weatherId) {
+    }
+
+    /**
+     * Minute forecast for the next hour: precipitation in mm/h per minute.
+     */
+    public record Minutely(long[] dt, float[] precipitation) {
+
+        public int size() {
+            return dt.length;
+        }
+    }
+
+    /**
+     * Hour forecast for the next 48 hours. {@code pop} is the probability of precipitation (0 to 1),
+     * {@code rain} and {@code snow} are the volumes of the hour in mm.
+     */
+    public record Hourly(long[] dt, float[] temp, float[] feelsLike, float[] pressure, float[] humidity,
+                         float[] clouds, float[] windSpeed, float[] windGust, float[] pop, float[] rain,
+                         float[] snow, int[] weatherId) {
+
+        public int size() {
+            return dt.length;
+        }
+    }
+
+    /**
+     * Daily forecast for the next 8 days. {@code rain} and {@code snow} are the volumes of the day in mm.
+     */
+    public record Daily(long[] dt, long[] sunrise, long[] sunset, float[] tempDay, float[] tempMin, float[] tempMax,
+                        float[] tempNight, float[] pressure, float[] humidity, float[] windSpeed, float[] windGust,
+                        float[] clouds, float[] pop, float[] rain, float[] snow, float[] uvi, int[] weatherId) {
+
+        public int size() {
+            return dt.length;
+        }
+    }
+
+    /**
+     * A weather alert issued by a national agency.
+     */
+    public record Alert(String senderName, String event, long start, long end, String description,
+                        List<String> tags) {
+    }
+}
@@ -0,0 +1,767 @@
+package WeatherAPP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The OneCallParser class decodes One Call 3.0 responses into {@link OneCallData} in a single forward pass.
+ * Unlike a DOM parser it never builds an intermediate object tree: keys are matched in place,
+ * numbers are decoded without creating strings, and sections the caller did not ask for are skipped
+ * without being decoded at all.
+ *
+ * Malformed input results in an {@link IllegalArgumentException} naming the position of the error.
+ */
+
+public final class OneCallParser {
+
+    // Column indices of the hourly series buffer
+    private static final int H_TEMP = 0, H_FEELS_LIKE = 1, H_PRESSURE = 2, H_HUMIDITY = 3, H_CLOUDS = 4,
+            H_WIND_SPEED = 5, H_WIND_GUST = 6, H_POP = 7, H_RAIN = 8, H_SNOW = 9, H_COLUMNS = 10;
+
+    // Column indices of the daily series buffer
+    private static final int D_TEMP_DAY = 0, D_TEMP_MIN = 1, D_TEMP_MAX = 2, D_TEMP_NIGHT = 3, D_PRESSURE = 4,
+            D_HUMIDITY = 5, D_WIND_SPEED = 6, D_WIND_GUST = 7, D_CLOUDS = 8, D_POP = 9, D_RAIN = 10, D_SNOW = 11,
+            D_UVI = 12, D_COLUMNS = 13;
+
+    // Exact powers of ten for the fast number path
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final String in;
+    private int pos;
+
+    // Bounds of the most recently read object key
+    private int keyStart, keyEnd;
+
+    private OneCallParser(String in) {
+        this.in = in;
+    }
+
+    /**
+     * Decodes all sections of a One Call response.
+     *
+     * @param json The JSON payload.
+     * @return The decoded response.
+     */
+    public static OneCallData parse(String json) {
+        return parse(json, EnumSet.allOf(WeatherSection.class));
+    }
+
+    /**
+     * Decodes the given sections of a One Call response; all other sections are skipped.
+     *
+     * @param json     The JSON payload.
+     * @param sections The sections to decode.
+     * @return The decoded response.
+     */
+    public static OneCallData parse(String json, Set<WeatherSection> sections) {
+        return new OneCallParser(json).parseRoot(sections);
+    }
+
+    /**
+     * Replaces the given sections of a payload with those of a partial payload fetched with {@code exclude}.
+     * The partial payload is authoritative for these sections: a section it does not contain
+     * (e.g. {@code alerts} after all alerts have ended) is removed from the result.
+     * Values are copied verbatim, nothing is decoded.
+     *
+     * @param base     The full payload.
+     * @param update   The partial payload.
+     * @param sections The sections that were fetched in the partial payload.
+     * @return The merged payload.
+     */
+    public static String merge(String base, String update, Set<WeatherSection> sections) {
+        Map<String, int[]> baseValues = new OneCallParser(base).readTopLevelValues();
+        Map<String, int[]> updateValues = new OneCallParser(update).readTopLevelValues();
+
+        StringBuilder merged = new StringBuilder(base.length() + update.length()).append('{');
+        for (Map.Entry<String, int[]> entry : baseValues.entrySet()) {
+            if (!isSectionKey(entry.getKey(), sections)) {
+                appendMember(merged, entry.getKey(), base, entry.getValue());
+            }
+        }
+        for (WeatherSection section : sections) {
+            int[] range = updateValues.get(section.key());
+            if (range != null) {
+                appendMember(merged, section.key(), update, range);
+            }
+        }
+        return merged.append('}').toString();
+    }
+
+    private static boolean isSectionKey(String key, Set<WeatherSection> sections) {
+        for (WeatherSection section : sections) {
+            if (section.key().equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendMember(StringBuilder sb, String key, String source, int[] range) {
+        if (sb.length() > 1) {
+            sb.append(',');
+        }
+        sb.append('"').append(key).append("\":").append(source, range[0], range[1]);
+    }
+
+    /**
+     * Reads the keys of the root object together with the bounds of their raw values.
+     *
+     * @return The value bounds {@code [start, end)} by key, in document order.
+     */
+    private Map<String, int[]> readTopLevelValues() {
+        Map<String, int[]> values = new LinkedHashMap<>();
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                readKey();
+                String key = in.substring(keyStart, keyEnd);
+                skipWhitespace();
+                int start = pos;
+                skipValue();
+                values.put(key, new int[]{start, pos});
+            } while (tryConsume(','));
+            expect('}');
+        }
+        return values;
+    }
+
+    private OneCallData parseRoot(Set<WeatherSection> sections) {
+        double latitude = Double.NaN, longitude = Double.NaN;
+        String timezone = null;
+        int timezoneOffset = 0;
+        OneCallData.Current current = null;
+        OneCallData.Minutely minutely = null;
+        OneCallData.Hourly hourly = null;
+        OneCallData.Daily daily = null;
+        List<OneCallData.Alert> alerts = sections.contains(WeatherSection.ALERTS) ? List.of() : null;
+
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                readKey();
+                if (key("lat")) {
+                    latitude = readNumber();
+                } else if (key("lon")) {
+                    longitude = readNumber();
+                } else if (key("timezone")) {
+                    timezone = readString();
+                } else if (key("timezone_offset")) {
+                    timezoneOffset = (int) readNumber();
+                } else if (key("current") && sections.contains(WeatherSection.CURRENT)) {
+                    current = readCurrent();
+                } else if (key("minutely") && sections.contains(WeatherSection.MINUTELY)) {
+                    minutely = readMinutely();
+                } else if (key("hourly") && sections.contains(WeatherSection.HOURLY)) {
+                    hourly = readHourly();
+                } else if (key("daily") && sections.contains(WeatherSection.DAILY)) {
+                    daily = readDaily();
+                } else if (key("alerts") && sections.contains(WeatherSection.ALERTS)) {
+                    alerts = readAlerts();
+                } else {
+                    skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+        return new OneCallData(latitude, longitude, timezone, timezoneOffset, current, minutely, hourly, daily, alerts);
+    }
+
+    private OneCallData.Current readCurrent() {
+        long dt = 0, sunrise = 0, sunset = 0;
+        float temp = Float.NaN, feelsLike = Float.NaN, dewPoint = Float.NaN, uvi = Float.NaN;
+        float windSpeed = Float.NaN, windGust = Float.NaN, rain = Float.NaN, snow = Float.NaN;
+        int pressure = -1, humidity = -1, clouds = -1, visibility = -1, windDeg = -1, weatherId = -1;
+
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                readKey();
+                if (key("dt")) {
+                    dt = readLong();
+                } else if (key("sunrise")) {
+                    sunrise = readLong();
+                } else if (key("sunset")) {
+                    sunset = readLong();
+                } else if (key("temp")) {
+                    temp = (float) readNumber();
+                } else if (key("feels_like")) {
+                    feelsLike = (float) readNumber();
+                } else if (key("pressure")) {
+                    pressure = readInt();
+                } else if (key("humidity")) {
+                    humidity = readInt();
+                } else if (key("dew_point")) {
+                    dewPoint = (float) readNumber();
+                } else if (key("uvi")) {
+                    uvi = (float) readNumber();
+                } else if (key("clouds")) {
+                    clouds = readInt();
+                } else if (key("visibility")) {
+                    visibility = readInt();
+                } else if (key("wind_speed")) {
+                    windSpeed = (float) readNumber();
+                } else if (key("wind_deg")) {
+                    windDeg = readInt();
+                } else if (key("wind_gust")) {
+                    windGust = (float) readNumber();
+                } else if (key("rain")) {
+                    rain = readOneHourVolume();
+                } else if (key("snow")) {
+                    snow = readOneHourVolume();
+                } else if (key("weather")) {
+                    weatherId = readWeatherId();
+                } else {
+                    skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+        return new OneCallData.Current(dt, sunrise, sunset, temp, feelsLike, pressure, humidity, dewPoint, uvi,
+                clouds, visibility, windSpeed, windDeg, windGust, rain, snow, weatherId);
+    }
+
+    private OneCallData.Minutely readMinutely() {
+        SeriesBuffer buffer = new SeriesBuffer(1, 61);
+        expect('[');
+        if (!tryConsume(']')) {
+            do {
+                int row = buffer.addRow();
+                expect('{');
+                if (!tryConsume('}')) {
+                    do {
+                        readKey();
+                        if (key("dt")) {
+                            buffer.dt[row] = readLong();
+                        } else if (key("precipitation")) {
+                            buffer.values[0][row] = (float) readNumber();
+                        } else {
+                            skipValue();
+                        }
+                    } while (tryConsume(','));
+                    expect('}');
+                }
+            } while (tryConsume(','));
+            expect(']');
+        }
+        return new OneCallData.Minutely(buffer.dt(), buffer.column(0));
+    }
+
+    private OneCallData.Hourly readHourly() {
+        SeriesBuffer buffer = new SeriesBuffer(H_COLUMNS, 48);
+        expect('[');
+        if (!tryConsume(']')) {
+            do {
+                int row = buffer.addRow();
+                float[][] v = buffer.values;
+                expect('{');
+                if (!tryConsume('}')) {
+                    do {
+                        readKey();
+                        if (key("dt")) {
+                            buffer.dt[row] = readLong();
+                        } else if (key("temp")) {
+                            v[H_TEMP][row] = (float) readNumber();
+                        } else if (key("feels_like")) {
+                            v[H_FEELS_LIKE][row] = (float) readNumber();
+                        } else if (key("pressure")) {
+                            v[H_PRESSURE][row] = (float) readNumber();
+                        } else if (key("humidity")) {
+                            v[H_HUMIDITY][row] = (float) readNumber();
+                        } else if (key("clouds")) {
+                            v[H_CLOUDS][row] = (float) readNumber();
+                        } else if (key("wind_speed")) {
+                            v[H_WIND_SPEED][row] = (float) readNumber();
+                        } else if (key("wind_gust")) {
+                            v[H_WIND_GUST][row] = (float) readNumber();
+                        } else if (key("pop")) {
+                            v[H_POP][row] = (float) readNumber();
+                        } else if (key("rain")) {
+                            v[H_RAIN][row] = readOneHourVolume();
+                        } else if (key("snow")) {
+                            v[H_SNOW][row] = readOneHourVolume();
+                        } else if (key("weather")) {
+                            buffer.weatherIds[row] = readWeatherId();
+                        } else {
+                            skipValue();
+                        }
+                    } while (tryConsume(','));
+                    expect('}');
+                }
+            } while (tryConsume(','));
+            expect(']');
+        }
+        return new OneCallData.Hourly(buffer.dt(), buffer.column(H_TEMP), buffer.column(H_FEELS_LIKE),
+                buffer.column(H_PRESSURE), buffer.column(H_HUMIDITY), buffer.column(H_CLOUDS),
+                buffer.column(H_WIND_SPEED), buffer.column(H_WIND_GUST), buffer.column(H_POP),
+                buffer.column(H_RAIN), buffer.column(H_SNOW), buffer.weatherIds());
+    }
+
+    private OneCallData.Daily readDaily() {
+        SeriesBuffer buffer = new SeriesBuffer(D_COLUMNS, 8);
+        long[] sunrise = new long[8], sunset = new long[8];
+        expect('[');
+        if (!tryConsume(']')) {
+            do {
+                int row = buffer.addRow();
+                if (row == sunrise.length) {
+                    sunrise = Arrays.copyOf(sunrise, buffer.dt.length);
+                    sunset = Arrays.copyOf(sunset, buffer.dt.length);
+                }
+                float[][] v = buffer.values;
+                expect('{');
+                if (!tryConsume('}')) {
+                    do {
+                        readKey();
+                        if (key("dt")) {
+                            buffer.dt[row] = readLong();
+                        } else if (key("sunrise")) {
+                            sunrise[row] = readLong();
+                        } else if (key("sunset")) {
+                            sunset[row] = readLong();
+                        } else if (key("temp")) {
+                            readDailyTemperatures(v, row);
+                        } else if (key("pressure")) {
+                            v[D_PRESSURE][row] = (float) readNumber();
+                        } else if (key("humidity")) {
+                            v[D_HUMIDITY][row] = (float) readNumber();
+                        } else if (key("wind_speed")) {
+                            v[D_WIND_SPEED][row] = (float) readNumber();
+                        } else if (key("wind_gust")) {
+                            v[D_WIND_GUST][row] = (float) readNumber();
+                        } else if (key("clouds")) {
+                            v[D_CLOUDS][row] = (float) readNumber();
+                        } else if (key("pop")) {
+                            v[D_POP][row] = (float) readNumber();
+                        } else if (key("rain")) {
+                            v[D_RAIN][row] = (float) readNumber();
+                        } else if (key("snow")) {
+                            v[D_SNOW][row] = (float) readNumber();
+                        } else if (key("uvi")) {
+                            v[D_UVI][row] = (float) readNumber();
+                        } else if (key("weather")) {
+                            buffer.weatherIds[row] = readWeatherId();
+                        } else {
+                            skipValue();
+                        }
+                    } while (tryConsume(','));
+                    expect('}');
+                }
+            } while (tryConsume(','));
+            expect(']');
+        }
+        int size = buffer.size;
+        return new OneCallData.Daily(buffer.dt(), trim(sunrise, size), trim(sunset, size),
+                buffer.column(D_TEMP_DAY), buffer.column(D_TEMP_MIN), buffer.column(D_TEMP_MAX),
+                buffer.column(D_TEMP_NIGHT), buffer.column(D_PRESSURE), buffer.column(D_HUMIDITY),
+                buffer.column(D_WIND_SPEED), buffer.column(D_WIND_GUST), buffer.column(D_CLOUDS),
+                buffer.column(D_POP), buffer.column(D_RAIN), buffer.column(D_SNOW), buffer.column(D_UVI),
+                buffer.weatherIds());
+    }
+
+    private void readDailyTemperatures(float[][] v, int row) {
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                readKey();
+                if (key("day")) {
+                    v[D_TEMP_DAY][row] = (float) readNumber();
+                } else if (key("min")) {
+                    v[D_TEMP_MIN][row] = (float) readNumber();
+                } else if (key("max")) {
+                    v[D_TEMP_MAX][row] = (float) readNumber();
+                } else if (key("night")) {
+                    v[D_TEMP_NIGHT][row] = (float) readNumber();
+                } else {
+                    skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+    }
+
+    private List<OneCallData.Alert> readAlerts() {
+        List<OneCallData.Alert> alerts = new ArrayList<>();
+        expect('[');
+        if (!tryConsume(']')) {
+            do {
+                String senderName = null, event = null, description = null;
+                long start = 0, end = 0;
+                List<String> tags = List.of();
+                expect('{');
+                if (!tryConsume('}')) {
+                    do {
+                        readKey();
+                        if (key("sender_name")) {
+                            senderName = readString();
+                        } else if (key("event")) {
+                            event = readString();
+                        } else if (key("start")) {
+                            start = readLong();
+                        } else if (key("end")) {
+                            end = readLong();
+                        } else if (key("description")) {
+                            description = readString();
+                        } else if (key("tags")) {
+                            tags = readStringArray();
+                        } else {
+                            skipValue();
+                        }
+                    } while (tryConsume(','));
+                    expect('}');
+                }
+                alerts.add(new OneCallData.Alert(senderName, event, start, end, description, tags));
+            } while (tryConsume(','));
+            expect(']');
+        }
+        return alerts;
+    }
+
+    /**
+     * Reads a {@code {"1h": volume}} object as used for rain and snow.
+     */
+    private float readOneHourVolume() {
+        float volume = Float.NaN;
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                readKey();
+                if (key("1h")) {
+                    volume = (float) readNumber();
+                } else {
+                    skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+        return volume;
+    }
+
+    /**
+     * Reads a {@code weather} array and returns the condition id of its first element.
+     */
+    private int readWeatherId() {
+        int id = -1;
+        expect('[');
+        if (!tryConsume(']')) {
+            expect('{');
+            if (!tryConsume('}')) {
+                do {
+                    readKey();
+                    if (key("id")) {
+                        id = readInt();
+                    } else {
+                        skipValue();
+                    }
+                } while (tryConsume(','));
+                expect('}');
+            }
+            while (tryConsume(',')) {
+                skipValue();
+            }
+            expect(']');
+        }
+        return id;
+    }
+
+    private List<String> readStringArray() {
+        List<String> strings = new ArrayList<>();
+        expect('[');
+        if (!tryConsume(']')) {
+            do {
+                strings.add(readString());
+            } while (tryConsume(','));
+            expect(']');
+        }
+        return strings;
+    }
+
+    // ---- tokenizer ----
+
+    private void skipWhitespace() {
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private void expect(char expected) {
+        skipWhitespace();
+        if (pos >= in.length() || in.charAt(pos) != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    private boolean tryConsume(char c) {
+        skipWhitespace();
+        if (pos < in.length() && in.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads an object key and the following colon, remembering the key's bounds instead of creating a string.
+     */
+    private void readKey() {
+        expect('"');
+        keyStart = pos;
+        while (pos < in.length() && in.charAt(pos) != '"') {
+            pos += in.charAt(pos) == '\\' ? 2 : 1;
+        }
+        if (pos >= in.length()) {
+            throw error("Unterminated key");
+        }
+        keyEnd = pos++;
+        expect(':');
+    }
+
+    private boolean key(String name) {
+        return keyEnd - keyStart == name.length() && in.regionMatches(keyStart, name, 0, name.length());
+    }
+
+    private boolean tryConsumeNull() {
+        skipWhitespace();
+        if (in.startsWith("null", pos)) {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    private long readLong() {
+        double value = readNumber();
+        return Double.isNaN(value) ? 0 : (long) value;
+    }
+
+    private int readInt() {
+        double value = readNumber();
+        return Double.isNaN(value) ? -1 : (int) Math.round(value);
+    }
+
+    /**
+     * Reads a JSON number without creating a string for it. Numbers with more significant digits than fit
+     * into a long, or with an exponent, fall back to {@link Double#parseDouble(String)}.
+     *
+     * @return The number, or {@code NaN} for a JSON {@code null}.
+     */
+    private double readNumber() {
+        if (tryConsumeNull()) {
+            return Double.NaN;
+        }
+        int start = pos;
+        boolean negative = false;
+        if (pos < in.length() && in.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0, fractionDigits = 0;
+        boolean fraction = false, slowPath = false;
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                } else if (!fraction) {
+                    slowPath = true;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == 'e' || c == 'E' || c == '+' || (c == '-' && pos > start)) {
+                slowPath = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start || (negative && pos == start + 1)) {
+            throw error("Expected a number");
+        }
+        if (slowPath || fractionDigits >= POWERS_OF_TEN.length || mantissa > (1L << 53)) {
+            return Double.parseDouble(in.substring(start, pos));
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a JSON string, decoding escape sequences.
+     *
+     * @return The string, or {@code null} for a JSON {@code null}.
+     */
+    private String readString() {
+        if (tryConsumeNull()) {
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c == '"') {
+                return in.substring(start, pos++);
+            }
+            if (c == '\\') {
+                return readEscapedString(start);
+            }
+            pos++;
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readEscapedString(int start) {
+        StringBuilder sb = new StringBuilder(in.length() - start < 64 ? 16 : 64);
+        sb.append(in, start, pos);
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= in.length()) {
+                break;
+            }
+            char escaped = in.charAt(pos++);
+            switch (escaped) {
+                case 'n' -> sb.append('\n');
+                case 't' -> sb.append('\t');
+                case 'r' -> sb.append('\r');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos + 4 > in.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    sb.append((char) Integer.parseInt(in, pos, pos + 4, 16));
+                    pos += 4;
+                }
+                default -> sb.append(escaped); // \" \\ \/
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    /**
+     * Skips over any JSON value without decoding it.
+     */
+    private void skipValue() {
+        skipWhitespace();
+        if (pos >= in.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = in.charAt(pos);
+        if (c == '"') {
+            pos++;
+            while (pos < in.length() && in.charAt(pos) != '"') {
+                pos += in.charAt(pos) == '\\' ? 2 : 1;
+            }
+            if (pos >= in.length()) {
+                throw error("Unterminated string");
+            }
+            pos++;
+        } else if (c == '{' || c == '[') {
+            // Skip balanced brackets; strings are skipped as a whole so brackets inside them are ignored
+            int depth = 0;
+            while (pos < in.length()) {
+                char d = in.charAt(pos);
+                if (d == '"') {
+                    skipValue();
+                    continue;
+                }
+                if (d == '{' || d == '[') {
+                    depth++;
+                } else if (d == '}' || d == ']') {
+                    depth--;
+                }
+                pos++;
+                if (depth == 0) {
+                    return;
+                }
+            }
+            throw error("Unterminated " + (c == '{' ? "object" : "array"));
+        } else {
+            // number, true, false or null
+            while (pos < in.length()) {
+                char d = in.charAt(pos);
+                if (d == ',' || d == '}' || d == ']' || d == ' ' || d == '\n' || d == '\r' || d == '\t') {
+                    break;
+                }
+                pos++;
+            }
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos + " of One Call response");
+    }
+
+    private static long[] trim(long[] array, int size) {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    /**
+     * Growable column buffer for one forecast series. New rows are pre-filled with {@code NaN} and {@code -1},
+     * so fields missing from an entry read as missing.
+     */
+    private static final class SeriesBuffer {
+        private long[] dt;
+        private float[][] values;
+        private int[] weatherIds;
+        private int size;
+
+        private SeriesBuffer(int columns, int capacity) {
+            dt = new long[capacity];
+            values = new float[columns][capacity];
+            weatherIds = new int[capacity];
+        }
+
+        private int addRow() {
+            if (size == dt.length) {
+                int capacity = Math.max(8, size * 2);
+                dt = Arrays.copyOf(dt, capacity);
+                weatherIds = Arrays.copyOf(weatherIds, capacity);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Arrays.copyOf(values[i], capacity);
+                }
+            }
+            for (float[] column : values) {
+                column[size] = Float.NaN;
+            }
+            weatherIds[size] = -1;
+            return size++;
+        }
+
+        private long[] dt() {
+            return trim(dt, size);
+        }
+
+        private float[] column(int index) {
+            float[] column = values[index];
+            return column.length == size ? column : Arrays.copyOf(column, size);
+        }
+
+        private int[] weatherIds() {
+            return weatherIds.length == size ? weatherIds : Arrays.copyOf(weatherIds, size);
+        }
+    }
+}
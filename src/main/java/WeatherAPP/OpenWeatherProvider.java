@@ -0,0 +1,79 @@
+package WeatherAPP;
+
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The OpenWeatherProvider class requests data from the OpenWeather One Call 3.0 API.
+ *
+ * {@link #fromEnvironment()} reads the API key from the system property {@code openweather.apiKey} or the
+ * environment variable {@code OPENWEATHER_API_KEY}, and the endpoint from the system property
+ * {@code openweather.baseUrl}, e.g. {@code -Dopenweather.baseUrl=http://localhost:8080/data/3.0/onecall}
+ * to run the application against the stub server of the benchmarks module.
+ */
+
+public class OpenWeatherProvider implements WeatherProvider {
+
+    // Default endpoint and API key
+    public static final String DEFAULT_BASE_URL = "https://api.openweathermap.org/data/3.0/onecall";
+    private static final String DEFAULT_API_KEY = "*******************"; //
+
+    private static final Set<WeatherSection> ALL_SECTIONS = EnumSet.allOf(WeatherSection.class);
+
+    private final String baseUrl;
+    private final String apiKey;
+
+    /**
+     * @param baseUrl The One Call endpoint.
+     * @param apiKey  The API key sent as {@code appid}.
+     */
+    public OpenWeatherProvider(String baseUrl, String apiKey) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * @return A provider configured from system properties and the environment, see the class description.
+     */
+    public static OpenWeatherProvider fromEnvironment() {
+        String apiKey = System.getProperty("openweather.apiKey", System.getenv("OPENWEATHER_API_KEY"));
+        return new OpenWeatherProvider(System.getProperty("openweather.baseUrl", DEFAULT_BASE_URL),
+                apiKey == null || apiKey.isBlank() ? DEFAULT_API_KEY : apiKey);
+    }
+
+    @Override
+    public String name() {
+        return "OpenWeather";
+    }
+
+    /**
+     * Builds the One Call URL for the given coordinates.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param sections  The sections to fetch; all others are listed in the {@code exclude} parameter.
+     * @return The request URL.
+     */
+    @Override
+    public URI requestUri(double latitude, double longitude, Set<WeatherSection> sections) {
+        // Construct the URL with the given coordinates and API key
+        StringBuilder url = new StringBuilder(baseUrl)
+                .append("?lat=").append(latitude)
+                .append("&lon=").append(longitude);
+        if (sections.size() < ALL_SECTIONS.size()) {
+            StringBuilder exclude = new StringBuilder();
+            for (WeatherSection section : ALL_SECTIONS) {
+                if (!sections.contains(section)) {
+                    exclude.append(exclude.length() == 0 ? "" : ",").append(section.key());
+                }
+            }
+            url.append("&exclude=").append(exclude);
+        }
+        return URI.create(url.append("&appid=").append(apiKey).toString());
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+}
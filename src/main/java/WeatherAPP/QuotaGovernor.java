@@ -0,0 +1,263 @@
+package WeatherAPP;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The QuotaGovernor class protects the metered One Call endpoint against bursts and surprise bills.
+ * It combines a token bucket, which limits the short-term request rate, with a daily call counter,
+ * which is persisted to disk so restarts do not reset the day's budget. The day rolls over at midnight UTC.
+ *
+ * The state file may be shared by several processes, e.g. the dashboard and a CLI export. Each governor counts
+ * its own calls and merges them into the file under a file lock, taking over the calls the others added
+ * meanwhile. It does so every {@link #SYNC_CALLS} calls, at least every {@link #SYNC_INTERVAL_SECONDS} seconds
+ * while calls are made, on every call once the reserve is reached, and on {@link #flush()}. A governor that
+ * has not merged yet does not know about the other processes' calls, so together they may exceed the budget
+ * by at most {@code SYNC_CALLS - 1} calls per process.
+ *
+ * Once only a reserve of the daily budget is left, calls are only granted if the caller has no cached data
+ * to fall back to, so the remaining budget is spent on locations that would otherwise show nothing.
+ */
+
+public class QuotaGovernor {
+
+    public static final int DEFAULT_DAILY_QUOTA = 1000; // free tier of the One Call 3.0 API
+    public static final int DEFAULT_RESERVE = 50;
+    public static final int DEFAULT_BURST = 10;
+    public static final double DEFAULT_TOKENS_PER_SECOND = 0.5;
+    public static final Path DEFAULT_STATE_FILE =
+            Path.of(System.getProperty("user.home"), ".f70weather", "quota.properties");
+    public static final int SYNC_CALLS = 10;
+    public static final int SYNC_INTERVAL_SECONDS = 30;
+
+    // Serializes the governors of this JVM, since a file lock is held per JVM and not per thread
+    private static final Object SYNC_LOCK = new Object();
+
+    /**
+     * The outcome of asking for a call.
+     */
+    public enum Decision {
+        /** The call may be made. */
+        ALLOW,
+        /** The short-term rate is exceeded; retry later or use cached data. */
+        THROTTLED,
+        /** The daily budget is used up (or only the reserve is left and cached data exists). */
+        EXHAUSTED
+    }
+
+    private final Path stateFile;
+    private final int dailyQuota;
+    private final int reserve;
+    private final int burst;
+    private final double tokensPerNano;
+    private final Clock clock;
+
+    // Token bucket
+    private double tokens;
+    private long lastRefillNanos;
+
+    // Daily counter, including the calls of other processes as of the last sync
+    private LocalDate day;
+    private int callsToday;
+    private int unsynced;
+    private long lastSyncNanos;
+
+    /**
+     * Creates a governor with the default limits that persists its state in {@code ~/.f70weather/quota.properties}.
+     */
+    public QuotaGovernor() {
+        this(DEFAULT_STATE_FILE, DEFAULT_DAILY_QUOTA, DEFAULT_RESERVE, DEFAULT_BURST, DEFAULT_TOKENS_PER_SECOND);
+    }
+
+    /**
+     * Creates a governor.
+     *
+     * @param stateFile       The file the daily counter is persisted in, or {@code null} to keep it in memory only.
+     * @param dailyQuota      The maximum number of calls per UTC day.
+     * @param reserve         The number of calls kept for locations without any cached data.
+     * @param burst           The capacity of the token bucket, i.e. the number of calls allowed in a burst.
+     * @param tokensPerSecond The sustained call rate.
+     */
+    public QuotaGovernor(Path stateFile, int dailyQuota, int reserve, int burst, double tokensPerSecond) {
+        if (dailyQuota <= 0 || reserve < 0 || burst <= 0 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid quota configuration");
+        }
+        this.stateFile = stateFile;
+        this.dailyQuota = dailyQuota;
+        this.reserve = reserve;
+        this.burst = burst;
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.clock = Clock.systemUTC();
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.day = LocalDate.now(clock);
+        this.lastSyncNanos = System.nanoTime();
+        callsToday = readStoredCalls();
+    }
+
+    /**
+     * Asks for permission to make one call. A granted call is counted immediately.
+     *
+     * @param fallbackAvailable Whether the caller could show cached data instead.
+     * @return The decision.
+     */
+    public Decision tryAcquire(boolean fallbackAvailable) {
+        return tryAcquire(() -> fallbackAvailable);
+    }
+
+    /**
+     * Asks for permission to make one call. A granted call is counted immediately.
+     *
+     * @param fallbackAvailable Whether the caller could show cached data instead; only asked once the reserve
+     *                          is reached, so an expensive lookup is skipped while the budget is ample.
+     * @return The decision.
+     */
+    public synchronized Decision tryAcquire(BooleanSupplier fallbackAvailable) {
+        rollOverDay();
+        if (dailyQuota - callsToday <= reserve
+                || System.nanoTime() - lastSyncNanos >= SYNC_INTERVAL_SECONDS * 1_000_000_000L) {
+            sync();
+        }
+        int remaining = dailyQuota - callsToday;
+        if (remaining <= 0 || (remaining <= reserve && fallbackAvailable.getAsBoolean())) {
+            return Decision.EXHAUSTED;
+        }
+        refill();
+        if (tokens < 1) {
+            return Decision.THROTTLED;
+        }
+        tokens -= 1;
+        callsToday++;
+        unsynced++;
+        if (unsynced >= SYNC_CALLS || dailyQuota - callsToday <= reserve) {
+            sync();
+        }
+        return Decision.ALLOW;
+    }
+
+    /**
+     * Merges the calls not yet written into the state file, e.g. before the process exits.
+     */
+    public synchronized void flush() {
+        if (unsynced > 0) {
+            sync();
+        }
+    }
+
+    /**
+     * @return The time in nanoseconds until the token bucket grants the next call; 0 if a token is available.
+     */
+    public synchronized long nanosUntilNextToken() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * @return The number of calls left today.
+     */
+    public synchronized int getRemainingToday() {
+        rollOverDay();
+        return Math.max(0, dailyQuota - callsToday);
+    }
+
+    public synchronized int getCallsToday() {
+        rollOverDay();
+        return callsToday;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private void rollOverDay() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(day)) {
+            // Calls not merged yet belong to the previous day's budget
+            day = today;
+            unsynced = 0;
+            callsToday = readStoredCalls();
+            lastSyncNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Adds the calls made since the last sync to the state file and takes over the total, which includes the
+     * calls of other processes. The file is locked while it is read and rewritten, so no process overwrites
+     * the calls another one added. If the file cannot be written, the calls stay pending for the next sync.
+     */
+    private void sync() {
+        lastSyncNanos = System.nanoTime();
+        if (stateFile == null) {
+            unsynced = 0;
+            return;
+        }
+        synchronized (SYNC_LOCK) {
+            try {
+                Files.createDirectories(stateFile.toAbsolutePath().getParent());
+                Path lockFile = stateFile.resolveSibling(stateFile.getFileName() + ".lock");
+                // Closing the channel releases the lock
+                try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE)) {
+                    channel.lock();
+                    int total = readStoredCalls() + unsynced;
+                    if (unsynced > 0) {
+                        write(total);
+                    }
+                    callsToday = total;
+                    unsynced = 0;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return Today's counter in the state file; 0 if there is none or it belongs to an earlier day.
+     */
+    private int readStoredCalls() {
+        if (stateFile == null) {
+            return 0;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile)) {
+            properties.load(reader);
+            if (day.toString().equals(properties.getProperty("day"))) {
+                return Integer.parseInt(properties.getProperty("calls", "0"));
+            }
+        } catch (NoSuchFileException e) {
+            // first start, nothing used yet
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Writes the counter to a temporary file and moves it over the state file, so it is never left half-written.
+     */
+    private void write(int calls) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("day", day.toString());
+        properties.setProperty("calls", Integer.toString(calls));
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            properties.store(writer, "OpenWeather calls per UTC day");
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
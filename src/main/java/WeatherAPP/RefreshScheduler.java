@@ -0,0 +1,134 @@
+package WeatherAPP;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The RefreshScheduler class runs refresh jobs one at a time on a single background thread.
+ * Every submitted job gets a new, monotonically increasing version. Submitting a job supersedes all earlier ones:
+ * a job still waiting out its debounce delay is dropped, a running job is interrupted, and results of superseded
+ * jobs are never published. Publishing re-checks the version on the publishing thread (e.g. the FX thread),
+ * so a late response for an old selection can never overwrite a newer one.
+ */
+
+public class RefreshScheduler implements AutoCloseable {
+
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(250);
+
+    private final ScheduledExecutorService executor;
+    private final Executor publisher;
+    private final AtomicLong latestVersion = new AtomicLong();
+    private ScheduledFuture<?> pending;
+
+    /**
+     * A job that fetches data and publishes it through its {@link Refresh}.
+     */
+    @FunctionalInterface
+    public interface Job {
+        void run(Refresh refresh) throws Exception;
+    }
+
+    /**
+     * The handle a running job uses to check whether it is still wanted and to publish its results.
+     */
+    public final class Refresh {
+        private final long version;
+
+        private Refresh(long version) {
+            this.version = version;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return Whether a newer job has been submitted since this one.
+         */
+        public boolean isSuperseded() {
+            return version != latestVersion.get();
+        }
+
+        /**
+         * Runs an update on the publishing thread, unless this job has been superseded by the time it runs there.
+         *
+         * @param update The update to run.
+         */
+        public void publish(Runnable update) {
+            if (isSuperseded()) {
+                return;
+            }
+            publisher.execute(() -> {
+                if (!isSuperseded()) {
+                    update.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param publisher The executor results are published on, e.g. {@code Platform::runLater}.
+     */
+    public RefreshScheduler(Executor publisher) {
+        this.publisher = publisher;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a job that starts after the given delay, superseding all earlier jobs.
+     * Repeated submissions within the delay therefore only run the last job (debouncing).
+     *
+     * @param delay The debounce delay; {@link Duration#ZERO} to start as soon as the thread is free.
+     * @param job   The job.
+     * @return The version of the submitted job.
+     */
+    public synchronized long submit(Duration delay, Job job) {
+        long version = latestVersion.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(true);
+        }
+        Refresh refresh = new Refresh(version);
+        pending = executor.schedule(() -> {
+            if (refresh.isSuperseded()) {
+                return;
+            }
+            try {
+                job.run(refresh);
+            } catch (InterruptedException e) {
+                // superseded while waiting for the network
+            } catch (Exception e) {
+                if (!refresh.isSuperseded()) {
+                    e.printStackTrace();
+                }
+            }
+        }, delay.toNanos(), TimeUnit.NANOSECONDS);
+        return version;
+    }
+
+    /**
+     * @return The version of the most recently submitted job.
+     */
+    public long getLatestVersion() {
+        return latestVersion.get();
+    }
+
+    /**
+     * Supersedes all jobs and stops the background thread.
+     */
+    @Override
+    public synchronized void close() {
+        latestVersion.incrementAndGet();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,368 @@
+package WeatherAPP;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.VPos;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.stage.Stage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The RegionView class shows the weather of many locations at once, as a temperature or precipitation heatmap
+ * and as tiles. Its data are the locations in the response cache of a {@link WeatherAPI} within a bounding box,
+ * so opening the view costs no API calls beyond the preset cities it loads initially.
+ *
+ * Reading the cache, decoding changed payloads and rasterizing the heatmap all run on a single worker thread,
+ * at most once per frame interval no matter how many locations change in between. The worker renders into
+ * a spare pixel buffer and hands the finished frame over; the FX thread only copies it into a reused
+ * {@link WritableImage} with one {@code setPixels} call and redraws the tiles. If the FX thread has not
+ * shown a frame before the next one is ready, the older frame is dropped instead of queued.
+ *
+ * {@link #show()} must be called on the FX thread; {@link #refresh()} and {@link #close()} from any thread.
+ */
+
+public class RegionView implements AutoCloseable {
+
+    // Austria with some margin
+    public static final double MIN_LATITUDE = 46.2;
+    public static final double MIN_LONGITUDE = 9.3;
+    public static final double MAX_LATITUDE = 49.2;
+    public static final double MAX_LONGITUDE = 17.3;
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 450;
+    private static final int TILE_WIDTH = 126;
+    private static final int TILE_HEIGHT = 58;
+    private static final int TILE_GAP = 6;
+
+    private static final long FRAME_INTERVAL_NANOS = Duration.ofMillis(16).toNanos();
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(2);
+    private static final Set<WeatherSection> SECTIONS = EnumSet.of(WeatherSection.CURRENT);
+
+    private static final String HEATMAP = "Karte";
+    private static final String TILES = "Kacheln";
+
+    /**
+     * A decoded location.
+     *
+     * @param payload The payload the values were decoded from, compared by identity to skip unchanged entries.
+     */
+    private record Station(String name, double latitude, double longitude, float temperature, float precipitation,
+                           String payload) {
+
+        float value(HeatmapRenderer.Layer layer) {
+            return layer == HeatmapRenderer.Layer.TEMPERATURE ? temperature : precipitation;
+        }
+    }
+
+    private record Position(double latitude, double longitude) {
+    }
+
+    /**
+     * A rendered frame together with the stations it shows, for the tiles.
+     */
+    private record Frame(int[] pixels, List<Station> stations, HeatmapRenderer.Layer layer) {
+    }
+
+    private final WeatherAPI weatherAPI;
+    private final HeatmapRenderer renderer = new HeatmapRenderer(WIDTH, HEIGHT);
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "region-view");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only accessed on the worker thread
+    private final Map<Position, Station> stations = new HashMap<>();
+    private HeatmapRenderer.Layer renderedLayer;
+
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final AtomicReference<Frame> readyFrame = new AtomicReference<>();
+    private final AtomicReference<int[]> spareBuffer = new AtomicReference<>();
+    private volatile long lastFrameAt;
+    private volatile HeatmapRenderer.Layer layer = HeatmapRenderer.Layer.TEMPERATURE;
+
+    // Only accessed on the FX thread
+    private Stage stage;
+    private WritableImage image;
+    private Canvas tiles;
+    private Label statusLabel;
+    private ComboBox<String> viewSelection;
+    private Frame shownFrame;
+    private boolean started;
+
+    /**
+     * @param weatherAPI The API whose cache provides the locations.
+     */
+    public RegionView(WeatherAPI weatherAPI) {
+        this.weatherAPI = weatherAPI;
+    }
+
+    /**
+     * Shows the window, creating it on the first call. The first call also fetches the preset cities
+     * in the background and starts polling the cache.
+     */
+    public void show() {
+        if (stage == null) {
+            stage = createStage();
+        }
+        stage.show();
+        stage.toFront();
+        if (!started) {
+            started = true;
+            worker.scheduleWithFixedDelay(this::refresh, 0, POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            for (Location location : Location.PRESETS) {
+                weatherAPI.getWeatherDataAsync(location.latitude(), location.longitude())
+                        .thenRun(this::refresh);
+            }
+        }
+    }
+
+    /**
+     * Schedules reading the cache and rendering a new frame if anything changed. Calls within the same frame
+     * interval are coalesced into one.
+     */
+    public void refresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            long wait = lastFrameAt + FRAME_INTERVAL_NANOS - System.nanoTime();
+            try {
+                worker.schedule(this::renderFrame, Math.max(0, wait), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // The view has been closed
+            }
+        }
+    }
+
+    private Stage createStage() {
+        image = new WritableImage(WIDTH, HEIGHT);
+        tiles = new Canvas(WIDTH, HEIGHT);
+
+        ComboBox<String> layerSelection = new ComboBox<>();
+        for (HeatmapRenderer.Layer value : HeatmapRenderer.Layer.values()) {
+            layerSelection.getItems().add(value.label());
+        }
+        layerSelection.setValue(layer.label());
+        layerSelection.setOnAction(event -> {
+            for (HeatmapRenderer.Layer value : HeatmapRenderer.Layer.values()) {
+                if (value.label().equals(layerSelection.getValue())) {
+                    layer = value;
+                }
+            }
+            refresh();
+        });
+
+        ImageView heatmap = new ImageView(image);
+        ScrollPane tilePane = new ScrollPane(tiles);
+        tilePane.setVisible(false);
+
+        viewSelection = new ComboBox<>();
+        viewSelection.getItems().addAll(HEATMAP, TILES);
+        viewSelection.setValue(HEATMAP);
+        viewSelection.setOnAction(event -> {
+            boolean showTiles = TILES.equals(viewSelection.getValue());
+            heatmap.setVisible(!showTiles);
+            tilePane.setVisible(showTiles);
+            if (showTiles && shownFrame != null) {
+                drawTiles(shownFrame);
+            }
+        });
+
+        statusLabel = new Label("Orte: 0");
+        HBox controls = new HBox(10, layerSelection, viewSelection, statusLabel);
+        controls.setPadding(new Insets(10));
+
+        BorderPane root = new BorderPane(new StackPane(heatmap, tilePane));
+        root.setTop(controls);
+
+        Stage regionStage = new Stage();
+        regionStage.setTitle("Regionsansicht");
+        regionStage.setScene(new Scene(root, WIDTH + 20, HEIGHT + 60));
+        return regionStage;
+    }
+
+    /**
+     * Reads the cache, decodes the payloads that changed and renders a frame. Runs on the worker thread.
+     */
+    private void renderFrame() {
+        refreshScheduled.set(false);
+        try {
+            HeatmapRenderer.Layer currentLayer = layer;
+            if (!reloadStations() && currentLayer == renderedLayer) {
+                return;
+            }
+            renderedLayer = currentLayer;
+            lastFrameAt = System.nanoTime();
+
+            List<Station> sorted = new ArrayList<>(stations.values());
+            sorted.sort(Comparator.comparing(Station::name));
+            List<HeatmapRenderer.Sample> samples = new ArrayList<>(sorted.size());
+            for (Station station : sorted) {
+                samples.add(new HeatmapRenderer.Sample(station.latitude(), station.longitude(),
+                        station.value(currentLayer)));
+            }
+
+            int[] pixels = spareBuffer.getAndSet(null);
+            if (pixels == null) {
+                pixels = new int[WIDTH * HEIGHT];
+            }
+            long renderStart = System.nanoTime();
+            renderer.render(samples, MIN_LATITUDE, MIN_LONGITUDE, MAX_LATITUDE, MAX_LONGITUDE, currentLayer, pixels);
+            weatherAPI.getMetrics().recordLatency(WeatherMetrics.Stage.RENDER, System.nanoTime() - renderStart);
+
+            Frame dropped = readyFrame.getAndSet(new Frame(pixels, List.copyOf(sorted), currentLayer));
+            if (dropped == null) {
+                Platform.runLater(this::showFrame);
+            } else {
+                // The FX thread has not picked up the previous frame yet; the pending call shows this one instead
+                spareBuffer.set(dropped.pixels());
+            }
+        } catch (RuntimeException e) {
+            // Would otherwise cancel the periodic polling
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return Whether a station was added, changed or removed.
+     */
+    private boolean reloadStations() {
+        List<WeatherCache.CachedLocation> cached =
+                weatherAPI.getCachedWithin(MIN_LATITUDE, MIN_LONGITUDE, MAX_LATITUDE, MAX_LONGITUDE);
+        Map<Position, Station> previous = new HashMap<>(stations);
+        stations.clear();
+        boolean changed = false;
+        for (WeatherCache.CachedLocation location : cached) {
+            Position key = new Position(location.latitude(), location.longitude());
+            Station station = previous.remove(key);
+            if (station == null || station.payload() != location.payload()) {
+                Station decoded = decode(location);
+                if (decoded == null) {
+                    changed |= station != null;
+                    continue;
+                }
+                station = decoded;
+                changed = true;
+            }
+            stations.put(key, station);
+        }
+        return changed || !previous.isEmpty();
+    }
+
+    private static Station decode(WeatherCache.CachedLocation location) {
+        try {
+            OneCallData.Current current = OneCallParser.parse(location.payload(), SECTIONS).getCurrent();
+            float temperature = current == null ? Float.NaN : (float) WeatherFormat.kelvinToCelsius(current.temp());
+            // Without rain in the last hour the API leaves the field out
+            float precipitation = current == null ? Float.NaN : Float.isNaN(current.rain1h()) ? 0 : current.rain1h();
+            return new Station(nameOf(location), location.latitude(), location.longitude(), temperature, precipitation,
+                    location.payload());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid cached payload at " + location.latitude() + ", " + location.longitude());
+            return null;
+        }
+    }
+
+    /**
+     * @return The name of the preset at the location, otherwise its coordinates.
+     */
+    private static String nameOf(WeatherCache.CachedLocation location) {
+        for (Location preset : Location.PRESETS) {
+            if (SpatialIndex.distanceKm(preset.latitude(), preset.longitude(), location.latitude(),
+                    location.longitude()) < 2) {
+                return preset.name();
+            }
+        }
+        return String.format("%.2f, %.2f", location.latitude(), location.longitude());
+    }
+
+    /**
+     * Shows the newest frame. Runs on the FX thread.
+     */
+    private void showFrame() {
+        Frame frame = readyFrame.getAndSet(null);
+        if (frame == null) {
+            return;
+        }
+        image.getPixelWriter().setPixels(0, 0, WIDTH, HEIGHT, PixelFormat.getIntArgbPreInstance(),
+                frame.pixels(), 0, WIDTH);
+        if (shownFrame != null) {
+            spareBuffer.set(shownFrame.pixels());
+        }
+        shownFrame = frame;
+        statusLabel.setText("Orte: " + frame.stations().size());
+        if (TILES.equals(viewSelection.getValue())) {
+            drawTiles(frame);
+        }
+    }
+
+    /**
+     * Draws one tile per station, colored like the heatmap. Runs on the FX thread.
+     */
+    private void drawTiles(Frame frame) {
+        int columns = Math.max(1, (WIDTH + TILE_GAP) / (TILE_WIDTH + TILE_GAP));
+        int rows = (frame.stations().size() + columns - 1) / columns;
+        double height = Math.max(HEIGHT, rows * (TILE_HEIGHT + TILE_GAP));
+        if (tiles.getHeight() != height) {
+            tiles.setHeight(height);
+        }
+
+        GraphicsContext graphics = tiles.getGraphicsContext2D();
+        graphics.clearRect(0, 0, tiles.getWidth(), tiles.getHeight());
+        graphics.setTextBaseline(VPos.TOP);
+        graphics.setFont(Font.font(12));
+        for (int i = 0; i < frame.stations().size(); i++) {
+            Station station = frame.stations().get(i);
+            double x = i % columns * (TILE_WIDTH + TILE_GAP);
+            double y = i / columns * (TILE_HEIGHT + TILE_GAP);
+            float value = station.value(frame.layer());
+            int argb = Float.isNaN(value) ? 0xFFD0D0D0 : frame.layer().color(value);
+            graphics.setFill(Color.rgb(argb >> 16 & 0xFF, argb >> 8 & 0xFF, argb & 0xFF));
+            graphics.fillRect(x, y, TILE_WIDTH, TILE_HEIGHT);
+
+            // Dark text on light tiles, light text on dark ones
+            int brightness = (argb >> 16 & 0xFF) * 299 + (argb >> 8 & 0xFF) * 587 + (argb & 0xFF) * 114;
+            graphics.setFill(brightness > 128_000 ? Color.BLACK : Color.WHITE);
+            graphics.fillText(station.name(), x + 6, y + 6);
+            graphics.fillText(Float.isNaN(value) ? "Nicht verfügbar"
+                    : String.format("%.1f %s", value, frame.layer().unit()), x + 6, y + 30);
+        }
+    }
+
+    /**
+     * Stops the worker thread; the window is closed if it is open.
+     */
+    @Override
+    public void close() {
+        worker.shutdownNow();
+        if (stage != null) {
+            Platform.runLater(stage::close);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package WeatherAPP;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed call is retried. Only transient failures are retried: I/O errors such as
+ * timeouts and refused connections, and the HTTP statuses of an overloaded or briefly unavailable server.
+ * An HTTP 429 is only retried if the server says when with a {@code Retry-After} header; without one, a retry
+ * would most likely just use up more of an exhausted quota. Other client errors, e.g. an invalid API key,
+ * fail at once.
+ *
+ * The delay grows exponentially with every retry and half of it is random, so many clients that failed
+ * at the same time do not retry at the same time. A {@code Retry-After} header is honored; if it asks for
+ * more than the maximum delay, the call is not retried. No retry is started after the budget of the call has
+ * been used up, so a degraded server delays a call by a bounded amount of time.
+ *
+ * @param maxAttempts The maximum number of attempts including the first; 1 disables retries.
+ * @param baseDelay   The delay before the first retry, before jitter.
+ * @param maxDelay    The maximum delay before a retry.
+ * @param budget      The time since the start of the call after which no retry is started.
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration budget) {
+
+    public static final RetryPolicy DEFAULT =
+            new RetryPolicy(3, Duration.ofMillis(250), Duration.ofSeconds(4), Duration.ofSeconds(20));
+
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+    public RetryPolicy {
+        if (maxAttempts <= 0 || baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0 || budget.isNegative()) {
+            throw new IllegalArgumentException("Invalid retry policy");
+        }
+    }
+
+    /**
+     * @param status An HTTP status.
+     * @return Whether the status signals a transient failure of the server: 408, 500, 502, 503 or 504.
+     *         A 429 is not included, it only limits this client; see {@link #isRetryable(HttpResponse)}.
+     */
+    public static boolean isRetryable(int status) {
+        return status == 408 || status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * @param response The response of a failed attempt.
+     * @return Whether the attempt may be retried: its status is retryable, or it is a 429 with a
+     *         {@code Retry-After} header.
+     */
+    public static boolean isRetryable(HttpResponse<?> response) {
+        int status = response.statusCode();
+        return isRetryable(status) || status == 429 && response.headers().firstValue("Retry-After").isPresent();
+    }
+
+    /**
+     * @param e The exception a call failed with, possibly wrapped in a {@link CompletionException}.
+     * @return Whether the failure was an I/O error.
+     */
+    public static boolean isRetryable(Throwable e) {
+        Throwable cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * Returns the delay before a retry, or -1 if the call must not be retried anymore.
+     *
+     * @param attempt      The number of attempts made so far, at least 1.
+     * @param elapsedNanos The time since the start of the call.
+     * @param response     The response of the failed attempt, or {@code null} if it failed without one.
+     * @return The delay in nanoseconds, or -1.
+     */
+    public long nextDelayNanos(int attempt, long elapsedNanos, HttpResponse<?> response) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        long max = maxDelay.toNanos();
+        long exponential = Math.min(max, baseDelay.toNanos() << Math.min(attempt - 1, 30));
+        long delay = exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+
+        long retryAfter = response == null ? 0 : retryAfterNanos(response);
+        if (retryAfter > max) {
+            return -1;
+        }
+        delay = Math.max(delay, retryAfter);
+        return elapsedNanos + delay > budget.toNanos() ? -1 : delay;
+    }
+
+    /**
+     * @return The delay asked for by a {@code Retry-After} header in seconds, or 0 if there is none
+     *         or it is given as a date.
+     */
+    private static long retryAfterNanos(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim()))).toNanos();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return 0;
+        }
+    }
+}
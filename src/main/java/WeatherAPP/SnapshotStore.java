@@ -0,0 +1,258 @@
+package WeatherAPP;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SnapshotStore class persists the last fetched One Call payloads per location on disk,
+ * so the dashboard can render immediately after a restart and keep showing data without an uplink.
+ *
+ * Every location (rounded to a grid cell) has its own append-only file of records
+ * {@code [long fetchedAt][int length][UTF-8 payload]}. A record cut short by a crash is ignored when reading
+ * and cut off the file before the next record is appended.
+ * Once a file holds twice the configured number of snapshots it is compacted to the newest ones.
+ *
+ * Reads and writes fail if the calling thread is interrupted, e.g. by the {@link RefreshScheduler} superseding
+ * a refresh; the interrupt is kept and nothing about the file is remembered, so the next call reads it again.
+ */
+
+public class SnapshotStore {
+
+    public static final int DEFAULT_MAX_SNAPSHOTS = 5;
+
+    private final Path directory;
+    private final int maxSnapshots;
+    private final double gridDegrees;
+
+    // Per file: the number of records on disk and the newest snapshot, filled lazily
+    private final Map<Path, Integer> recordCounts = new HashMap<>();
+    private final Map<Path, Snapshot> latestSnapshots = new HashMap<>();
+
+    /**
+     * A payload as it was fetched at a given time.
+     *
+     * @param fetchedAt The fetch time in epoch milliseconds.
+     * @param payload   The JSON payload.
+     */
+    public record Snapshot(long fetchedAt, String payload) {
+    }
+
+    /**
+     * Creates a store in {@code ~/.f70weather/snapshots} keeping the default number of snapshots per location.
+     */
+    public SnapshotStore() {
+        this(Path.of(System.getProperty("user.home"), ".f70weather", "snapshots"), DEFAULT_MAX_SNAPSHOTS,
+                WeatherCache.DEFAULT_GRID_DEGREES);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param directory    The directory the snapshot files are kept in; it is created on first write.
+     * @param maxSnapshots The number of snapshots kept per location.
+     * @param gridDegrees  The grid size in degrees that coordinates are rounded to when choosing the file.
+     */
+    public SnapshotStore(Path directory, int maxSnapshots, double gridDegrees) {
+        if (maxSnapshots <= 0 || gridDegrees <= 0) {
+            throw new IllegalArgumentException("maxSnapshots and gridDegrees must be positive");
+        }
+        this.directory = directory;
+        this.maxSnapshots = maxSnapshots;
+        this.gridDegrees = gridDegrees;
+    }
+
+    /**
+     * Appends a snapshot for a location. Failures are reported but never propagated,
+     * since a missing snapshot only costs a slower start.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param fetchedAt The fetch time in epoch milliseconds.
+     * @param payload   The JSON payload.
+     */
+    public synchronized void append(double latitude, double longitude, long fetchedAt, String payload) {
+        Path file = fileFor(latitude, longitude);
+        try {
+            Files.createDirectories(directory);
+            int count = recordCount(file);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                writeRecord(out, new Snapshot(fetchedAt, payload));
+            }
+            latestSnapshots.put(file, new Snapshot(fetchedAt, payload));
+            recordCounts.put(file, ++count);
+
+            if (count >= 2 * maxSnapshots) {
+                compact(file);
+            }
+        } catch (IOException e) {
+            report(e);
+        }
+    }
+
+    /**
+     * Returns the newest snapshot stored for a location.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return The newest snapshot, or {@code null} if there is none or the file cannot be read.
+     */
+    public synchronized Snapshot latest(double latitude, double longitude) {
+        Path file = fileFor(latitude, longitude);
+        if (!latestSnapshots.containsKey(file)) {
+            List<Snapshot> snapshots;
+            try {
+                snapshots = readAll(file).snapshots();
+            } catch (IOException e) {
+                report(e);
+                return null;
+            }
+            latestSnapshots.put(file, snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1));
+        }
+        return latestSnapshots.get(file);
+    }
+
+    /**
+     * Returns all snapshots stored for a location, oldest first.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return The stored snapshots; empty if there are none or the file cannot be read.
+     */
+    public synchronized List<Snapshot> history(double latitude, double longitude) {
+        List<Snapshot> snapshots;
+        try {
+            snapshots = readAll(fileFor(latitude, longitude)).snapshots();
+        } catch (IOException e) {
+            report(e);
+            return List.of();
+        }
+        int from = Math.max(0, snapshots.size() - maxSnapshots);
+        return List.copyOf(snapshots.subList(from, snapshots.size()));
+    }
+
+    /**
+     * Rewrites a file with only its newest snapshots. The new file is written next to the old one
+     * and moved over it, so a crash during compaction never loses the existing data.
+     *
+     * @param file The file to compact.
+     * @throws IOException If the file cannot be rewritten.
+     */
+    private void compact(Path file) throws IOException {
+        List<Snapshot> snapshots = readAll(file).snapshots();
+        List<Snapshot> kept = snapshots.subList(Math.max(0, snapshots.size() - maxSnapshots), snapshots.size());
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            for (Snapshot snapshot : kept) {
+                writeRecord(out, snapshot);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordCounts.put(file, kept.size());
+    }
+
+    /**
+     * Returns the number of records of a file before the first append to it. A record cut short by a crash
+     * is cut off the file first, so new records are not appended behind its remains.
+     */
+    private int recordCount(Path file) throws IOException {
+        Integer count = recordCounts.get(file);
+        if (count == null) {
+            Contents contents = readAll(file);
+            if (Files.exists(file) && Files.size(file) > contents.validLength()) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(contents.validLength());
+                }
+            }
+            count = contents.snapshots().size();
+            recordCounts.put(file, count);
+        }
+        return count;
+    }
+
+    /**
+     * The complete records of a file.
+     *
+     * @param snapshots   The snapshots in the order they were written.
+     * @param validLength The length in bytes of the complete records; anything behind it is a damaged record.
+     */
+    private record Contents(List<Snapshot> snapshots, long validLength) {
+    }
+
+    /**
+     * Reads all complete records of a file.
+     *
+     * @param file The file to read.
+     * @return The records; empty if the file does not exist.
+     * @throws IOException If the file cannot be read; then nothing read so far may be taken for its content.
+     */
+    private Contents readAll(Path file) throws IOException {
+        List<Snapshot> snapshots = new ArrayList<>();
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                long fetchedAt = in.readLong();
+                int length = in.readInt();
+                if (length < 0) {
+                    break; // corrupted record, keep what was read so far
+                }
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length) {
+                    break; // truncated tail record
+                }
+                snapshots.add(new Snapshot(fetchedAt, new String(bytes, StandardCharsets.UTF_8)));
+                validLength += Long.BYTES + Integer.BYTES + length;
+            }
+        } catch (EOFException | NoSuchFileException e) {
+            // end of file or no snapshots yet
+        }
+        return new Contents(snapshots, validLength);
+    }
+
+    /**
+     * Reports a failed read or write. An interrupt closed the file channel; it is passed on to the caller
+     * instead of being printed, since the interrupted work is not wanted anymore.
+     */
+    private static void report(IOException e) {
+        if (e instanceof ClosedByInterruptException) {
+            Thread.currentThread().interrupt();
+        } else {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Snapshot snapshot) throws IOException {
+        byte[] bytes = snapshot.payload().getBytes(StandardCharsets.UTF_8);
+        out.writeLong(snapshot.fetchedAt());
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return The snapshot file of the grid cell the coordinates fall into.
+     */
+    private Path fileFor(double latitude, double longitude) {
+        long latitudeCell = Math.round(latitude / gridDegrees);
+        long longitudeCell = Math.round(longitude / gridDegrees);
+        return directory.resolve(latitudeCell + "_" + longitudeCell + ".snap");
+    }
+}
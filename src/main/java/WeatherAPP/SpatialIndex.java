@@ -0,0 +1,227 @@
+package WeatherAPP;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * The SpatialIndex class finds values stored at coordinates by distance or by bounding box.
+ *
+ * Values are kept in buckets of a fixed grid (like a geohash of fixed precision), so a lookup only looks at the
+ * few cells overlapping the search area and takes microseconds regardless of the number of values.
+ * Distances are great-circle distances. Search areas are not wrapped around the antimeridian.
+ *
+ * The index is not thread-safe; callers synchronize.
+ *
+ * @param <T> The type of the stored values.
+ */
+
+public class SpatialIndex<T> {
+
+    public static final double DEFAULT_CELL_DEGREES = 0.1; // roughly 11 km
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    private final double cellDegrees;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private int size;
+
+    private record Entry<T>(double latitude, double longitude, T value) {
+    }
+
+    /**
+     * A value found by a radius search.
+     *
+     * @param value      The value.
+     * @param distanceKm The distance from the search point in kilometers.
+     */
+    public record Match<T>(T value, double distanceKm) {
+    }
+
+    public SpatialIndex() {
+        this(DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * @param cellDegrees The size of the grid cells in degrees; about the typical search radius works best.
+     */
+    public SpatialIndex(double cellDegrees) {
+        if (cellDegrees <= 0) {
+            throw new IllegalArgumentException("cellDegrees must be positive");
+        }
+        this.cellDegrees = cellDegrees;
+    }
+
+    /**
+     * Adds a value at the given coordinates. The same value may be stored at several coordinates.
+     *
+     * @param latitude  The latitude.
+     * @param longitude The longitude.
+     * @param value     The value.
+     */
+    public void put(double latitude, double longitude, T value) {
+        cells.computeIfAbsent(cellOf(latitude, longitude), cell -> new ArrayList<>(4))
+                .add(new Entry<>(latitude, longitude, value));
+        size++;
+    }
+
+    /**
+     * Removes a value stored at the given coordinates.
+     *
+     * @param latitude  The latitude it was stored at.
+     * @param longitude The longitude it was stored at.
+     * @param value     The value.
+     * @return Whether the value was found.
+     */
+    public boolean remove(double latitude, double longitude, T value) {
+        long cell = cellOf(latitude, longitude);
+        List<Entry<T>> entries = cells.get(cell);
+        if (entries == null) {
+            return false;
+        }
+        for (Iterator<Entry<T>> it = entries.iterator(); it.hasNext(); ) {
+            Entry<T> entry = it.next();
+            if (entry.latitude() == latitude && entry.longitude() == longitude && entry.value().equals(value)) {
+                it.remove();
+                if (entries.isEmpty()) {
+                    cells.remove(cell);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the values within a radius, nearest first.
+     *
+     * @param latitude  The latitude of the search point.
+     * @param longitude The longitude of the search point.
+     * @param radiusKm  The search radius in kilometers.
+     * @return The matches sorted by distance.
+     */
+    public List<Match<T>> withinRadius(double latitude, double longitude, double radiusKm) {
+        List<Match<T>> matches = new ArrayList<>();
+        double latitudeSpan = radiusKm / KM_PER_DEGREE;
+        double maxAbsLatitude = Math.min(90, Math.abs(latitude) + latitudeSpan);
+        double cos = Math.cos(Math.toRadians(maxAbsLatitude));
+        double longitudeSpan = cos < 1e-6 ? 360 : latitudeSpan / cos;
+        forEachInBox(latitude - latitudeSpan, longitude - longitudeSpan, latitude + latitudeSpan,
+                longitude + longitudeSpan, entry -> {
+                    double distance = distanceKm(latitude, longitude, entry.latitude(), entry.longitude());
+                    if (distance <= radiusKm) {
+                        matches.add(new Match<>(entry.value(), distance));
+                    }
+                });
+        matches.sort(Comparator.comparingDouble(Match::distanceKm));
+        return matches;
+    }
+
+    /**
+     * Returns the nearest value within a radius that passes a check, e.g. whether its data is still fresh.
+     * The check is only applied to candidates within the radius, nearest first.
+     *
+     * @param latitude  The latitude of the search point.
+     * @param longitude The longitude of the search point.
+     * @param radiusKm  The search radius in kilometers.
+     * @param accept    The check a value has to pass.
+     * @return The nearest accepted match, or {@code null} if there is none.
+     */
+    public Match<T> nearest(double latitude, double longitude, double radiusKm, Predicate<T> accept) {
+        for (Match<T> match : withinRadius(latitude, longitude, radiusKm)) {
+            if (accept.test(match.value())) {
+                return match;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the values within a bounding box, e.g. the region shown by a map view.
+     *
+     * @param minLatitude  The southern edge.
+     * @param minLongitude The western edge.
+     * @param maxLatitude  The northern edge.
+     * @param maxLongitude The eastern edge.
+     * @return The values in no particular order.
+     */
+    public List<T> withinBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        List<T> values = new ArrayList<>();
+        forEachInBox(minLatitude, minLongitude, maxLatitude, maxLongitude, entry -> values.add(entry.value()));
+        return values;
+    }
+
+    private void forEachInBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                              Consumer<Entry<T>> action) {
+        long minRow = (long) Math.floor(Math.max(-90, minLatitude) / cellDegrees);
+        long maxRow = (long) Math.floor(Math.min(90, maxLatitude) / cellDegrees);
+        long minColumn = (long) Math.floor(Math.max(-180, minLongitude) / cellDegrees);
+        long maxColumn = (long) Math.floor(Math.min(180, maxLongitude) / cellDegrees);
+        double boxCells = (double) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+
+        if (boxCells > cells.size()) {
+            // Large box: cheaper to look at every occupied cell than at every cell of the box
+            for (List<Entry<T>> entries : cells.values()) {
+                for (Entry<T> entry : entries) {
+                    if (entry.latitude() >= minLatitude && entry.latitude() <= maxLatitude
+                            && entry.longitude() >= minLongitude && entry.longitude() <= maxLongitude) {
+                        action.accept(entry);
+                    }
+                }
+            }
+            return;
+        }
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long column = minColumn; column <= maxColumn; column++) {
+                List<Entry<T>> entries = cells.get(key(row, column));
+                if (entries == null) {
+                    continue;
+                }
+                for (Entry<T> entry : entries) {
+                    if (entry.latitude() >= minLatitude && entry.latitude() <= maxLatitude
+                            && entry.longitude() >= minLongitude && entry.longitude() <= maxLongitude) {
+                        action.accept(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return key((long) Math.floor(latitude / cellDegrees), (long) Math.floor(longitude / cellDegrees));
+    }
+
+    private static long key(long row, long column) {
+        return (row << 32) ^ (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Calculates the great-circle distance between two points with the haversine formula.
+     *
+     * @return The distance in kilometers.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
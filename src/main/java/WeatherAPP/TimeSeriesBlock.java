@@ -0,0 +1,228 @@
+package WeatherAPP;
+
+import java.util.Arrays;
+
+/**
+ * A sealed, compressed block of a time series: timestamps and one or more float columns of the same rows.
+ *
+ * Timestamps are stored as delta-of-delta and values as the XOR with the previous value of the column,
+ * both in the variable-length bit encoding of Facebook's Gorilla time-series database. Forecast series are
+ * regular (one entry per minute or hour) and change slowly, so most timestamps take one bit and most values
+ * a few bits instead of 8 and 4 bytes. Each column is encoded separately, so a query decodes only the column it reads.
+ */
+
+final class TimeSeriesBlock {
+
+    private final long firstDt;
+    private final long lastDt;
+    private final int size;
+    private final byte[] timestamps;
+    private final byte[][] columns;
+
+    private TimeSeriesBlock(long firstDt, long lastDt, int size, byte[] timestamps, byte[][] columns) {
+        this.firstDt = firstDt;
+        this.lastDt = lastDt;
+        this.size = size;
+        this.timestamps = timestamps;
+        this.columns = columns;
+    }
+
+    /**
+     * Compresses rows of a series.
+     *
+     * @param dt     The timestamps, strictly increasing.
+     * @param values The columns, {@code values[column][row]}.
+     * @param count  The number of rows to encode, starting with the first; at least 1.
+     * @return The block.
+     */
+    static TimeSeriesBlock encode(long[] dt, float[][] values, int count) {
+        BitWriter out = new BitWriter(count / 4 + 16);
+        out.write(dt[0], 64);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = dt[i] - dt[i - 1];
+            long dod = delta - previousDelta;
+            previousDelta = delta;
+            long zigzag = (dod << 1) ^ (dod >> 63);
+            if (zigzag == 0) {
+                out.write(0, 1);
+            } else if (zigzag < 1 << 7) {
+                out.write(0b10, 2);
+                out.write(zigzag, 7);
+            } else if (zigzag < 1 << 12) {
+                out.write(0b110, 3);
+                out.write(zigzag, 12);
+            } else if (zigzag < 1 << 20) {
+                out.write(0b1110, 4);
+                out.write(zigzag, 20);
+            } else {
+                out.write(0b1111, 4);
+                out.write(zigzag, 64);
+            }
+        }
+
+        byte[][] columns = new byte[values.length][];
+        for (int c = 0; c < values.length; c++) {
+            columns[c] = encodeColumn(values[c], count);
+        }
+        return new TimeSeriesBlock(dt[0], dt[count - 1], count, out.toByteArray(), columns);
+    }
+
+    private static byte[] encodeColumn(float[] values, int count) {
+        BitWriter out = new BitWriter(count / 2 + 8);
+        int previous = Float.floatToRawIntBits(values[0]);
+        out.write(previous, 32);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            int bits = Float.floatToRawIntBits(values[i]);
+            int xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            int leading = Integer.numberOfLeadingZeros(xor);
+            int trailing = Integer.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // The changed bits fit into the window of the previous value
+                out.write(0b10, 2);
+                out.write(xor >>> previousTrailing, 32 - previousLeading - previousTrailing);
+            } else {
+                int length = 32 - leading - trailing;
+                out.write(0b11, 2);
+                out.write(leading, 5);
+                out.write(length - 1, 5);
+                out.write(xor >>> trailing, length);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The timestamps of all rows.
+     */
+    long[] decodeTimestamps() {
+        long[] dt = new long[size];
+        BitReader in = new BitReader(timestamps);
+        dt[0] = in.read(64);
+        long delta = 0;
+        for (int i = 1; i < size; i++) {
+            long zigzag;
+            if (in.read(1) == 0) {
+                zigzag = 0;
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(7);
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(12);
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(20);
+            } else {
+                zigzag = in.read(64);
+            }
+            delta += (zigzag >>> 1) ^ -(zigzag & 1);
+            dt[i] = dt[i - 1] + delta;
+        }
+        return dt;
+    }
+
+    /**
+     * @param column The column index.
+     * @return The values of all rows of the column.
+     */
+    float[] decodeColumn(int column) {
+        float[] values = new float[size];
+        BitReader in = new BitReader(columns[column]);
+        int bits = (int) in.read(32);
+        values[0] = Float.intBitsToFloat(bits);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < size; i++) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(5);
+                    trailing = 32 - leading - ((int) in.read(5) + 1);
+                }
+                bits ^= (int) in.read(32 - leading - trailing) << trailing;
+            }
+            values[i] = Float.intBitsToFloat(bits);
+        }
+        return values;
+    }
+
+    long getFirstDt() {
+        return firstDt;
+    }
+
+    long getLastDt() {
+        return lastDt;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The approximate heap size of the block in bytes.
+     */
+    long getMemoryUsage() {
+        long bytes = 48 + 16 + timestamps.length + 16 + 8L * columns.length;
+        for (byte[] column : columns) {
+            bytes += 16 + column.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Appends bit fields, most significant bit first.
+     */
+    private static final class BitWriter {
+        private byte[] bytes;
+        private long bitCount;
+
+        private BitWriter(int capacity) {
+            bytes = new byte[Math.max(8, capacity)];
+        }
+
+        private void write(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                int index = (int) (bitCount >>> 3);
+                if (index == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                if (((value >>> i) & 1) != 0) {
+                    bytes[index] |= (byte) (0x80 >>> (bitCount & 7));
+                }
+                bitCount++;
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((bitCount + 7) >>> 3));
+        }
+    }
+
+    /**
+     * Reads bit fields written by a {@link BitWriter}.
+     */
+    private static final class BitReader {
+        private final byte[] bytes;
+        private long position;
+
+        private BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private long read(int bits) {
+            long value = 0;
+            for (int i = 0; i < bits; i++) {
+                int bit = (bytes[(int) (position >>> 3)] >>> (7 - (position & 7))) & 1;
+                value = (value << 1) | bit;
+                position++;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package WeatherAPP;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+
+/**
+ * The TimeSeriesChart class plots a long time series, e.g. weeks of minutely history, as a line on a single
+ * {@link Canvas} instead of one scene graph node per point.
+ *
+ * On every redraw only the visible range is looked up (by binary search) and downsampled to about two points
+ * per pixel column with the selected {@link Downsampler.Mode}, so the drawing cost depends on the width of the
+ * chart rather than on the length of the series. Zooming and panning recompute the level of detail for the new
+ * range. The downsampling buffers are reused, so redraws do not allocate. Changes only mark the chart dirty;
+ * it is redrawn once in the next layout pass, however many changes happened in between.
+ *
+ * The mouse wheel zooms around the cursor, dragging pans, and a double click shows the whole series again.
+ * All methods must be called on the FX thread.
+ */
+
+public final class TimeSeriesChart extends Region {
+
+    private static final double LEFT = 56;
+    private static final double RIGHT = 12;
+    private static final double TOP = 24;
+    private static final double BOTTOM = 28;
+    private static final double ZOOM_FACTOR = 1.25;
+    private static final long MIN_VISIBLE_SECONDS = 600;
+
+    private final Canvas canvas = new Canvas();
+
+    private TimeSeriesStore.TimeSeries series = new TimeSeriesStore.TimeSeries(new long[0], new float[0]);
+    private String unit = "";
+    private Color color = Color.rgb(200, 60, 40);
+    private Downsampler.Mode mode = Downsampler.Mode.MIN_MAX;
+
+    // Visible time range in Unix seconds; follows the whole series until the user zooms or pans
+    private long viewFrom;
+    private long viewTo;
+    private boolean zoomed;
+    private double dragX;
+
+    private long[] plotDt = new long[0];
+    private float[] plotValues = new float[0];
+    private boolean dirty = true;
+
+    public TimeSeriesChart() {
+        getChildren().add(canvas);
+        setMinSize(200, 120);
+        setPrefSize(600, 400);
+
+        setOnScroll(event -> {
+            if (series.size() > 0 && event.getDeltaY() != 0) {
+                zoom(event.getDeltaY() > 0 ? 1 / ZOOM_FACTOR : ZOOM_FACTOR, event.getX());
+            }
+        });
+        setOnMousePressed(event -> dragX = event.getX());
+        setOnMouseDragged(event -> {
+            pan(dragX - event.getX());
+            dragX = event.getX();
+        });
+        setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) {
+                resetView();
+            }
+        });
+    }
+
+    /**
+     * Shows a series. The visible range is kept if the user has zoomed or panned, otherwise it follows the new series.
+     *
+     * @param series The series; its arrays are not copied and must not be modified afterwards.
+     * @param unit   The unit shown on the value axis.
+     */
+    public void setSeries(TimeSeriesStore.TimeSeries series, String unit) {
+        this.series = series;
+        this.unit = unit;
+        if (!zoomed || series.size() == 0) {
+            fitView();
+        }
+        invalidate();
+    }
+
+    public void setColor(Color color) {
+        this.color = color;
+        invalidate();
+    }
+
+    public void setDownsampling(Downsampler.Mode mode) {
+        this.mode = mode;
+        invalidate();
+    }
+
+    /**
+     * Shows the whole series.
+     */
+    public void resetView() {
+        zoomed = false;
+        fitView();
+        invalidate();
+    }
+
+    private void fitView() {
+        if (series.size() == 0) {
+            viewFrom = 0;
+            viewTo = 1;
+        } else {
+            viewFrom = series.dt()[0];
+            viewTo = Math.max(series.dt()[series.size() - 1], viewFrom + 1);
+        }
+    }
+
+    private void zoom(double factor, double mouseX) {
+        double width = plotWidth();
+        double anchor = viewFrom + (viewTo - viewFrom) * Math.max(0, Math.min(1, (mouseX - LEFT) / width));
+        long length = Math.max(MIN_VISIBLE_SECONDS, Math.round((viewTo - viewFrom) * factor));
+        long from = Math.round(anchor - (anchor - viewFrom) * ((double) length / (viewTo - viewFrom)));
+        setView(from, from + length);
+    }
+
+    private void pan(double pixels) {
+        long shift = Math.round(pixels / plotWidth() * (viewTo - viewFrom));
+        if (shift != 0) {
+            setView(viewFrom + shift, viewTo + shift);
+        }
+    }
+
+    /**
+     * Sets the visible range, clamped to the series.
+     */
+    private void setView(long from, long to) {
+        if (series.size() == 0) {
+            return;
+        }
+        long first = series.dt()[0];
+        long last = series.dt()[series.size() - 1];
+        long length = Math.min(to - from, Math.max(1, last - first));
+        from = Math.max(first, Math.min(from, last - length));
+        viewFrom = from;
+        viewTo = from + length;
+        zoomed = viewFrom > first || viewTo < last;
+        invalidate();
+    }
+
+    private void invalidate() {
+        dirty = true;
+        requestLayout();
+    }
+
+    private double plotWidth() {
+        return Math.max(1, getWidth() - LEFT - RIGHT);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            dirty = true;
+        }
+        if (dirty) {
+            dirty = false;
+            draw();
+        }
+    }
+
+    private void draw() {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        graphics.clearRect(0, 0, width, height);
+        graphics.setFont(Font.font(11));
+        graphics.setFill(Color.GRAY);
+        if (series.size() == 0) {
+            graphics.setTextAlign(TextAlignment.CENTER);
+            graphics.setTextBaseline(VPos.CENTER);
+            graphics.fillText("Keine Daten", width / 2, height / 2);
+            return;
+        }
+
+        int count = downsampleVisible();
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (!Float.isNaN(plotValues[i])) {
+                min = Math.min(min, plotValues[i]);
+                max = Math.max(max, plotValues[i]);
+            }
+        }
+        if (min > max) {
+            min = 0;
+            max = 1;
+        }
+        double[] ticks = ticks(min, max);
+        double low = Math.min(min, ticks[0]);
+        double high = Math.max(max, ticks[ticks.length - 1]);
+        if (high == low) {
+            high = low + 1;
+        }
+
+        double plotWidth = plotWidth();
+        double plotHeight = Math.max(1, height - TOP - BOTTOM);
+        drawAxes(graphics, ticks, low, high, plotWidth, plotHeight, count);
+
+        graphics.save();
+        graphics.beginPath();
+        graphics.rect(LEFT, TOP, plotWidth, plotHeight);
+        graphics.clip();
+        graphics.setStroke(color);
+        graphics.setLineWidth(1.2);
+        graphics.beginPath();
+        boolean penDown = false;
+        double xScale = plotWidth / (viewTo - viewFrom);
+        double yScale = plotHeight / (high - low);
+        for (int i = 0; i < count; i++) {
+            float value = plotValues[i];
+            if (Float.isNaN(value)) {
+                penDown = false;
+                continue;
+            }
+            double x = LEFT + (plotDt[i] - viewFrom) * xScale;
+            double y = TOP + plotHeight - (value - low) * yScale;
+            if (penDown) {
+                graphics.lineTo(x, y);
+            } else {
+                graphics.moveTo(x, y);
+                penDown = true;
+            }
+        }
+        graphics.stroke();
+        graphics.restore();
+    }
+
+    /**
+     * Downsamples the visible range plus one point on either side, so lines continue to the edges.
+     *
+     * @return The number of points in the plot buffers.
+     */
+    private int downsampleVisible() {
+        long[] dt = series.dt();
+        int from = Math.max(0, lowerBound(dt, viewFrom) - 1);
+        int to = Math.min(dt.length, lowerBound(dt, viewTo + 1) + 1);
+        int columns = (int) Math.max(1, plotWidth());
+        int capacity = 2 * columns + 2;
+        if (plotDt.length < capacity) {
+            plotDt = new long[capacity];
+            plotValues = new float[capacity];
+        }
+        if (to - from <= 2 * columns) {
+            System.arraycopy(dt, from, plotDt, 0, to - from);
+            System.arraycopy(series.values(), from, plotValues, 0, to - from);
+            return to - from;
+        }
+        return mode == Downsampler.Mode.LTTB
+                ? Downsampler.lttb(dt, series.values(), from, to, 2 * columns, plotDt, plotValues)
+                : Downsampler.minMax(dt, series.values(), from, to, viewFrom, viewTo, columns, plotDt, plotValues);
+    }
+
+    private void drawAxes(GraphicsContext graphics, double[] ticks, double low, double high, double plotWidth,
+                          double plotHeight, int points) {
+        graphics.setStroke(Color.gray(0.85));
+        graphics.setLineWidth(1);
+        graphics.setTextAlign(TextAlignment.RIGHT);
+        graphics.setTextBaseline(VPos.CENTER);
+        graphics.setFill(Color.gray(0.3));
+        for (double tick : ticks) {
+            double y = Math.round(TOP + plotHeight - (tick - low) / (high - low) * plotHeight) + 0.5;
+            graphics.strokeLine(LEFT, y, LEFT + plotWidth, y);
+            graphics.fillText(formatTick(tick), LEFT - 6, y);
+        }
+
+        // Time labels about every 120 pixels; the date is shown when the visible range spans more than a day
+        graphics.setTextAlign(TextAlignment.CENTER);
+        graphics.setTextBaseline(VPos.TOP);
+        int labels = (int) Math.max(2, plotWidth / 120);
+        boolean showDate = viewTo - viewFrom > 86_400;
+        for (int i = 0; i <= labels; i++) {
+            long time = viewFrom + (viewTo - viewFrom) * i / labels;
+            double x = LEFT + plotWidth * i / labels;
+            String label = showDate ? WeatherFormat.formatDayMonth(time) + " " + WeatherFormat.formatUnixTime(time)
+                    : WeatherFormat.formatUnixTime(time);
+            graphics.fillText(label, Math.min(Math.max(x, LEFT + 40), LEFT + plotWidth - 40), TOP + plotHeight + 6);
+        }
+
+        graphics.setTextAlign(TextAlignment.LEFT);
+        graphics.fillText(unit, 6, 6);
+        graphics.setTextAlign(TextAlignment.RIGHT);
+        graphics.fillText(points + " von " + series.size() + " Punkten", LEFT + plotWidth, 6);
+    }
+
+    /**
+     * @return About five evenly spaced round values covering the range.
+     */
+    static double[] ticks(double min, double max) {
+        double range = max - min;
+        if (range <= 0) {
+            range = Math.max(1, Math.abs(min));
+        }
+        double rough = range / 4;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(rough)));
+        double fraction = rough / magnitude;
+        double step = (fraction <= 1 ? 1 : fraction <= 2 ? 2 : fraction <= 5 ? 5 : 10) * magnitude;
+        double first = Math.floor(min / step) * step;
+        double last = Math.ceil(max / step) * step;
+        if (last == first) {
+            last = first + step;
+        }
+        int count = (int) Math.round((last - first) / step) + 1;
+        double[] ticks = new double[count];
+        for (int i = 0; i < count; i++) {
+            ticks[i] = first + i * step;
+        }
+        return ticks;
+    }
+
+    private static String formatTick(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format("%.1f", value);
+    }
+
+    /**
+     * @return The index of the first timestamp not before the given one.
+     */
+    private static int lowerBound(long[] dt, long time) {
+        int index = Arrays.binarySearch(dt, time);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && dt[index - 1] == time) {
+            index--;
+        }
+        return index;
+    }
+}
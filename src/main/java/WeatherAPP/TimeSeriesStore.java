@@ -0,0 +1,384 @@
+package WeatherAPP;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TimeSeriesStore class keeps the history of the minutely and hourly forecasts per location in memory.
+ *
+ * Every location (rounded to a grid cell) has one series per section, stored column-wise: a {@code long}
+ * timestamp column and one {@code float} column per {@link Metric}. Rows are appended to an uncompressed head;
+ * since every response forecasts the same upcoming hours again, a newer response overwrites the rows it covers
+ * in the head. Rows older than the first entry of the newest response can no longer change and are sealed into
+ * compressed {@link TimeSeriesBlock}s of {@link #BLOCK_SIZE} rows, which typically take 1 to 4 bits per value
+ * instead of 4 bytes. Blocks older than the retention period (relative to the newest entry of the series)
+ * are dropped.
+ *
+ * Four weeks of hourly and minutely history take roughly 100 KB per location instead of several MB of JSON.
+ * All methods are thread-safe.
+ */
+
+public class TimeSeriesStore {
+
+    public static final Duration DEFAULT_RETENTION = Duration.ofDays(28);
+    public static final int BLOCK_SIZE = 256;
+
+    private final long retentionSeconds;
+    private final double gridDegrees;
+    private final Map<WeatherCache.GridKey, Series[]> locations = new ConcurrentHashMap<>();
+
+    /**
+     * A stored metric and the section it comes from.
+     */
+    public enum Metric {
+        /** Precipitation in mm/h, per minute. */
+        PRECIPITATION(WeatherSection.MINUTELY, 0),
+        /** Temperature in Kelvin, per hour. */
+        TEMP(WeatherSection.HOURLY, 0),
+        FEELS_LIKE(WeatherSection.HOURLY, 1),
+        /** Pressure in hPa, per hour. */
+        PRESSURE(WeatherSection.HOURLY, 2),
+        /** Humidity in %, per hour. */
+        HUMIDITY(WeatherSection.HOURLY, 3),
+        /** Cloudiness in %, per hour. */
+        CLOUDS(WeatherSection.HOURLY, 4),
+        /** Wind speed in m/s, per hour. */
+        WIND_SPEED(WeatherSection.HOURLY, 5),
+        WIND_GUST(WeatherSection.HOURLY, 6),
+        /** Probability of precipitation between 0 and 1, per hour. */
+        POP(WeatherSection.HOURLY, 7),
+        /** Rain volume of the hour in mm. */
+        RAIN(WeatherSection.HOURLY, 8),
+        /** Snow volume of the hour in mm. */
+        SNOW(WeatherSection.HOURLY, 9);
+
+        private static final int MINUTELY_COLUMNS = 1;
+        private static final int HOURLY_COLUMNS = 10;
+
+        private final WeatherSection section;
+        private final int column;
+
+        Metric(WeatherSection section, int column) {
+            this.section = section;
+            this.column = column;
+        }
+
+        public WeatherSection section() {
+            return section;
+        }
+    }
+
+    /**
+     * How the values within a downsampling interval are combined. Missing values ({@code NaN}) are ignored.
+     */
+    public enum Aggregation {
+        MEAN, MIN, MAX, SUM, LAST
+    }
+
+    /**
+     * The result of a query.
+     *
+     * @param dt     The timestamps in Unix seconds, increasing.
+     * @param values The values; {@code NaN} where the value was missing.
+     */
+    public record TimeSeries(long[] dt, float[] values) {
+
+        public int size() {
+            return dt.length;
+        }
+    }
+
+    /**
+     * Creates a store with the default retention and the grid of the {@link WeatherCache}.
+     */
+    public TimeSeriesStore() {
+        this(DEFAULT_RETENTION, WeatherCache.DEFAULT_GRID_DEGREES);
+    }
+
+    /**
+     * @param retention   How long history is kept, measured back from the newest entry of a series.
+     * @param gridDegrees The grid size in degrees that coordinates are rounded to.
+     */
+    public TimeSeriesStore(Duration retention, double gridDegrees) {
+        if (retention.isNegative() || retention.isZero() || gridDegrees <= 0) {
+            throw new IllegalArgumentException("retention and gridDegrees must be positive");
+        }
+        this.retentionSeconds = retention.toSeconds();
+        this.gridDegrees = gridDegrees;
+    }
+
+    /**
+     * Adds the minutely and hourly series of a response. Sections the response does not contain are skipped.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param data      The decoded response.
+     */
+    public void ingest(double latitude, double longitude, OneCallData data) {
+        if (data.getMinutely() == null && data.getHourly() == null) {
+            return;
+        }
+        Series[] series = locations.computeIfAbsent(keyFor(latitude, longitude), key -> new Series[]{
+                new Series(Metric.MINUTELY_COLUMNS), new Series(Metric.HOURLY_COLUMNS)});
+        OneCallData.Minutely minutely = data.getMinutely();
+        if (minutely != null) {
+            series[0].ingest(minutely.dt(), new float[][]{minutely.precipitation()});
+        }
+        OneCallData.Hourly hourly = data.getHourly();
+        if (hourly != null) {
+            series[1].ingest(hourly.dt(), new float[][]{hourly.temp(), hourly.feelsLike(), hourly.pressure(),
+                    hourly.humidity(), hourly.clouds(), hourly.windSpeed(), hourly.windGust(), hourly.pop(),
+                    hourly.rain(), hourly.snow()});
+        }
+    }
+
+    /**
+     * Returns the stored values of a metric within a time range.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param metric    The metric.
+     * @param from      The start of the range in Unix seconds, inclusive.
+     * @param to        The end of the range in Unix seconds, inclusive.
+     * @return The values in the range; empty if nothing is stored.
+     */
+    public TimeSeries query(double latitude, double longitude, Metric metric, long from, long to) {
+        Series[] series = locations.get(keyFor(latitude, longitude));
+        if (series == null) {
+            return new TimeSeries(new long[0], new float[0]);
+        }
+        return series[metric.section == WeatherSection.MINUTELY ? 0 : 1].query(metric.column, from, to);
+    }
+
+    /**
+     * Returns the values of a metric within a time range, combined into fixed intervals,
+     * e.g. hourly means of the minutely precipitation or daily maxima of the temperature.
+     *
+     * @param latitude    The latitude of the location.
+     * @param longitude   The longitude of the location.
+     * @param metric      The metric.
+     * @param from        The start of the range in Unix seconds, inclusive.
+     * @param to          The end of the range in Unix seconds, inclusive.
+     * @param step        The interval length; intervals are aligned to multiples of it since the epoch.
+     * @param aggregation How the values within an interval are combined.
+     * @return One entry per interval that contains stored rows, timestamped with the start of the interval.
+     */
+    public TimeSeries query(double latitude, double longitude, Metric metric, long from, long to, Duration step,
+                            Aggregation aggregation) {
+        return downsample(query(latitude, longitude, metric, from, to), step.toSeconds(), aggregation);
+    }
+
+    static TimeSeries downsample(TimeSeries series, long step, Aggregation aggregation) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        long[] dt = new long[series.size()];
+        float[] values = new float[series.size()];
+        int buckets = 0;
+        int i = 0;
+        while (i < series.size()) {
+            long bucket = Math.floorDiv(series.dt()[i], step) * step;
+            double result = aggregation == Aggregation.MIN ? Double.POSITIVE_INFINITY
+                    : aggregation == Aggregation.MAX ? Double.NEGATIVE_INFINITY : 0;
+            int count = 0;
+            for (; i < series.size() && series.dt()[i] < bucket + step; i++) {
+                float value = series.values()[i];
+                if (Float.isNaN(value)) {
+                    continue;
+                }
+                count++;
+                result = switch (aggregation) {
+                    case MEAN, SUM -> result + value;
+                    case MIN -> Math.min(result, value);
+                    case MAX -> Math.max(result, value);
+                    case LAST -> value;
+                };
+            }
+            dt[buckets] = bucket;
+            values[buckets++] = count == 0 ? Float.NaN
+                    : (float) (aggregation == Aggregation.MEAN ? result / count : result);
+        }
+        return new TimeSeries(Arrays.copyOf(dt, buckets), Arrays.copyOf(values, buckets));
+    }
+
+    /**
+     * Removes the history of a location.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     */
+    public void remove(double latitude, double longitude) {
+        locations.remove(keyFor(latitude, longitude));
+    }
+
+    public void clear() {
+        locations.clear();
+    }
+
+    public int getLocationCount() {
+        return locations.size();
+    }
+
+    /**
+     * @return The approximate heap size of all stored series in bytes.
+     */
+    public long getMemoryUsage() {
+        long bytes = 0;
+        for (Series[] series : locations.values()) {
+            for (Series s : series) {
+                bytes += s.getMemoryUsage();
+            }
+        }
+        return bytes;
+    }
+
+    private WeatherCache.GridKey keyFor(double latitude, double longitude) {
+        return new WeatherCache.GridKey(Math.round(latitude / gridDegrees), Math.round(longitude / gridDegrees));
+    }
+
+    /**
+     * The series of one section of one location: sealed blocks followed by the uncompressed head.
+     */
+    private final class Series {
+        private final List<TimeSeriesBlock> blocks = new ArrayList<>();
+        private long[] headDt = new long[64];
+        private final float[][] head;
+        private int headSize;
+
+        private Series(int columns) {
+            head = new float[columns][64];
+        }
+
+        private synchronized void ingest(long[] dt, float[][] values) {
+            if (dt.length == 0) {
+                return;
+            }
+            long sealedUntil = blocks.isEmpty() ? Long.MIN_VALUE : blocks.get(blocks.size() - 1).getLastDt();
+            for (int i = 0; i < dt.length; i++) {
+                long t = dt[i];
+                if (headSize > 0 && t <= headDt[headSize - 1]) {
+                    // A newer forecast of a row in the head replaces it; rows between existing ones are not inserted
+                    int row = Arrays.binarySearch(headDt, 0, headSize, t);
+                    if (row >= 0) {
+                        setRow(row, values, i);
+                    }
+                } else if (t > sealedUntil) {
+                    if (headSize == headDt.length) {
+                        headDt = Arrays.copyOf(headDt, headSize * 2);
+                        for (int c = 0; c < head.length; c++) {
+                            head[c] = Arrays.copyOf(head[c], headSize * 2);
+                        }
+                    }
+                    headDt[headSize] = t;
+                    setRow(headSize++, values, i);
+                }
+            }
+            seal(dt[0]);
+            applyRetention();
+        }
+
+        private void setRow(int row, float[][] values, int index) {
+            for (int c = 0; c < head.length; c++) {
+                head[c][row] = values[c][index];
+            }
+        }
+
+        /**
+         * Compresses full blocks of the rows older than {@code firstForecast}, which newer responses no longer cover.
+         */
+        private void seal(long firstForecast) {
+            int finalRows = 0;
+            while (finalRows < headSize && headDt[finalRows] < firstForecast) {
+                finalRows++;
+            }
+            int sealed = 0;
+            while (finalRows - sealed >= BLOCK_SIZE) {
+                float[][] columns = new float[head.length][];
+                for (int c = 0; c < head.length; c++) {
+                    columns[c] = Arrays.copyOfRange(head[c], sealed, sealed + BLOCK_SIZE);
+                }
+                blocks.add(TimeSeriesBlock.encode(Arrays.copyOfRange(headDt, sealed, sealed + BLOCK_SIZE), columns,
+                        BLOCK_SIZE));
+                sealed += BLOCK_SIZE;
+            }
+            removeHeadRows(sealed);
+        }
+
+        private void applyRetention() {
+            if (headSize == 0) {
+                return;
+            }
+            long cutoff = headDt[headSize - 1] - retentionSeconds;
+            Iterator<TimeSeriesBlock> it = blocks.iterator();
+            while (it.hasNext() && it.next().getLastDt() < cutoff) {
+                it.remove();
+            }
+            int expired = 0;
+            while (expired < headSize && headDt[expired] < cutoff) {
+                expired++;
+            }
+            removeHeadRows(expired);
+        }
+
+        private void removeHeadRows(int count) {
+            if (count == 0) {
+                return;
+            }
+            headSize -= count;
+            System.arraycopy(headDt, count, headDt, 0, headSize);
+            for (float[] column : head) {
+                System.arraycopy(column, count, column, 0, headSize);
+            }
+        }
+
+        private synchronized TimeSeries query(int column, long from, long to) {
+            long[] dt = new long[64];
+            float[] values = new float[64];
+            int size = 0;
+            for (TimeSeriesBlock block : blocks) {
+                if (block.getLastDt() < from || block.getFirstDt() > to) {
+                    continue;
+                }
+                long[] blockDt = block.decodeTimestamps();
+                float[] blockValues = block.decodeColumn(column);
+                for (int i = 0; i < blockDt.length; i++) {
+                    if (blockDt[i] >= from && blockDt[i] <= to) {
+                        if (size == dt.length) {
+                            dt = Arrays.copyOf(dt, size * 2);
+                            values = Arrays.copyOf(values, size * 2);
+                        }
+                        dt[size] = blockDt[i];
+                        values[size++] = blockValues[i];
+                    }
+                }
+            }
+            for (int i = 0; i < headSize; i++) {
+                if (headDt[i] >= from && headDt[i] <= to) {
+                    if (size == dt.length) {
+                        dt = Arrays.copyOf(dt, size * 2);
+                        values = Arrays.copyOf(values, size * 2);
+                    }
+                    dt[size] = headDt[i];
+                    values[size++] = head[column][i];
+                }
+            }
+            return new TimeSeries(Arrays.copyOf(dt, size), Arrays.copyOf(values, size));
+        }
+
+        private synchronized long getMemoryUsage() {
+            long bytes = 64 + 16 + 8L * headDt.length;
+            for (float[] column : head) {
+                bytes += 16 + 4L * column.length;
+            }
+            for (TimeSeriesBlock block : blocks) {
+                bytes += 8 + block.getMemoryUsage();
+            }
+            return bytes;
+        }
+    }
+}
@@ -1,47 +1,935 @@
 package WeatherAPP;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The WeatherAPI class is responsible for fetching weather data from an external API.
- * It encapsulates the logic required to send HTTP requests and handle responses.
+ * It encapsulates the logic required to send HTTP requests and handle responses;
+ * the endpoint itself is described by a {@link WeatherProvider}, OpenWeather by default.
+ *
+ * All instances created with the default timeouts share one long-lived {@link HttpClient}, so connections
+ * (and their TLS sessions) are pooled and reused across calls instead of being re-established for every refresh.
+ * An optional {@link WeatherCache} answers repeated lookups without calling the API at all,
+ * and an optional {@link SnapshotStore} keeps the last payloads on disk for warm starts and offline use.
+ * Concurrent requests for the same coordinates are coalesced into one call, and an optional
+ * {@link QuotaGovernor} throttles calls and falls back to cached data when the budget runs low.
+ *
+ * Transient failures (I/O errors, 5xx and HTTP 429 with {@code Retry-After}) are retried with jittered exponential backoff as decided by
+ * a {@link RetryPolicy}. Every endpoint has a {@link CircuitBreaker}; while it is open, calls are answered with
+ * cached data, or fail, without contacting the API. A request that takes longer than 95% of the recent ones
+ * is hedged: a second identical request is sent and the first response wins, which cuts off the latency tail
+ * at the cost of a few percent more calls.
+ *
+ * Timings, sizes, cache lookups and errors are reported to a pluggable {@link WeatherMetrics}
+ * and every call is recorded as a {@link WeatherEvents.Fetch} JFR event, or a {@link WeatherEvents.Rejected}
+ * event if the circuit breaker or the quota governor kept it from being sent.
  */
 
 public class WeatherAPI {
 
-    // Constants for the API base URL and the API key
-    private static final String BASE_URL = "https://api.openweathermap.org/data/3.0/onecall";
-    private static final String API_KEY = "*******************"; // 
+    // Default timeouts used by the no-arg constructor
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    // Sections the dashboard reads; a cached payload is only reused while these are fresh
+    public static final Set<WeatherSection> DEFAULT_SECTIONS =
+            EnumSet.of(WeatherSection.CURRENT, WeatherSection.DAILY, WeatherSection.ALERTS);
+
+    // Shared client, built once; HttpClient is thread-safe and pools connections internally.
+    // How long idle connections are kept is a JVM-wide setting, so the launcher sets it
+    // (-Djdk.httpclient.keepalive.timeout in the pom) rather than this class
+    private static final HttpClient SHARED_CLIENT = createClient(DEFAULT_CONNECT_TIMEOUT);
+
+    private final WeatherProvider provider;
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final WeatherCache cache;
+    private final SnapshotStore snapshots;
+    private final QuotaGovernor governor;
+    private volatile WeatherMetrics metrics = WeatherMetrics.NOOP;
+    private volatile TimeSeriesStore history;
+    private volatile AlertStore alerts;
+    private volatile double nearbyRadiusKm;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+    // Circuit breakers by endpoint, i.e. request URI without the query
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    // Round trip times of the recent requests, for the hedging delay; the previous window is used
+    // while the current one has too few samples
+    private volatile Histogram recentRoundTrips = new Histogram();
+    private volatile Histogram previousRoundTrips = new Histogram();
+    private static final double HEDGE_PERCENTILE = 95;
+    private static final int HEDGE_MIN_SAMPLES = 20;
+    private static final int HEDGE_WINDOW = 1000;
+    private static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // Calls currently in flight by request URI, shared by all callers asking for the same coordinates
+    private final Map<URI, SharedCall> inFlight = new ConcurrentHashMap<>();
+
+    // ETag and Last-Modified of the last successful response per request URI, for conditional requests
+    private final Map<URI, Validators> validators = new ConcurrentHashMap<>();
+    private static final int MAX_VALIDATORS = 1024;
+
+    private static final Set<WeatherSection> ALL_SECTIONS = EnumSet.allOf(WeatherSection.class);
+    private static final Set<WeatherSection> HISTORY_SECTIONS = EnumSet.of(WeatherSection.MINUTELY, WeatherSection.HOURLY);
+
+    private record Validators(String etag, String lastModified) {
+    }
+
+    /**
+     * A call in flight, shared by all callers asking for the same request URI. Every caller gets its own
+     * future; when all of them have been cancelled, e.g. because their deadline passed, the call is abandoned:
+     * a delayed (throttled) send or retry is dropped before it uses the quota, and the request in flight is aborted.
+     */
+    private static final class SharedCall {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        // The callers still waiting for the result; 0 once the call has been abandoned
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        // The HTTP exchange of the current attempt
+        private volatile CompletableFuture<?> exchange;
+
+        /**
+         * @return Whether another caller could join; {@code false} if the call has been abandoned.
+         */
+        private boolean join() {
+            return waiters.getAndUpdate(n -> n == 0 ? 0 : n + 1) != 0;
+        }
+
+        /**
+         * @return A future for a caller that has joined (or started) the call; cancelling it leaves the call.
+         */
+        private CompletableFuture<String> waiter() {
+            CompletableFuture<String> waiter = result.copy();
+            waiter.whenComplete((body, e) -> {
+                if (waiter.isCancelled() && waiters.decrementAndGet() == 0) {
+                    result.cancel(false);
+                }
+            });
+            return waiter;
+        }
+
+        private boolean isAbandoned() {
+            return result.isCancelled();
+        }
+    }
+
+    /**
+     * Creates a WeatherAPI that uses the shared client and the default connect and request timeouts.
+     */
+    public WeatherAPI() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, null, null, null);
+    }
+
+    /**
+     * Creates a WeatherAPI with the default timeouts that answers lookups from the given cache when possible.
+     *
+     * @param cache The response cache, or {@code null} to always call the API.
+     */
+    public WeatherAPI(WeatherCache cache) {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, cache, null, null);
+    }
+
+    /**
+     * Creates a WeatherAPI with the default timeouts, a response cache and a snapshot store.
+     *
+     * @param cache     The response cache, or {@code null} to always call the API.
+     * @param snapshots The store every successful response is written to, or {@code null} to keep nothing on disk.
+     */
+    public WeatherAPI(WeatherCache cache, SnapshotStore snapshots) {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, cache, snapshots, null);
+    }
+
+    /**
+     * Creates a WeatherAPI with the default timeouts, a response cache, a snapshot store and a quota governor.
+     *
+     * @param cache     The response cache, or {@code null} to always call the API.
+     * @param snapshots The store every successful response is written to, or {@code null} to keep nothing on disk.
+     * @param governor  The governor every call has to be granted by, or {@code null} for unthrottled calls.
+     */
+    public WeatherAPI(WeatherCache cache, SnapshotStore snapshots, QuotaGovernor governor) {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, cache, snapshots, governor);
+    }
+
+    /**
+     * Creates a WeatherAPI for OpenWeather (configured by {@link OpenWeatherProvider#fromEnvironment()})
+     * with custom timeouts. If the connect timeout differs from the default,
+     * this instance gets its own client, so it should be kept and reused rather than created per call.
+     *
+     * @param connectTimeout The maximum time to wait for a connection to be established.
+     * @param requestTimeout The maximum time to wait for a complete response to a single request.
+     * @param cache          The response cache, or {@code null} to always call the API.
+     * @param snapshots      The store every successful response is written to, or {@code null} to keep nothing on disk.
+     * @param governor       The governor every call has to be granted by, or {@code null} for unthrottled calls.
+     */
+    public WeatherAPI(Duration connectTimeout, Duration requestTimeout, WeatherCache cache, SnapshotStore snapshots,
+                      QuotaGovernor governor) {
+        this(OpenWeatherProvider.fromEnvironment(), connectTimeout, requestTimeout, cache, snapshots, governor);
+    }
+
+    /**
+     * Creates a WeatherAPI for the given provider with custom timeouts. If the connect timeout differs from the
+     * default, this instance gets its own client, so it should be kept and reused rather than created per call.
+     *
+     * @param provider       The provider requests are built by.
+     * @param connectTimeout The maximum time to wait for a connection to be established.
+     * @param requestTimeout The maximum time to wait for a complete response to a single request.
+     * @param cache          The response cache, or {@code null} to always call the API.
+     * @param snapshots      The store every successful response is written to, or {@code null} to keep nothing on disk.
+     * @param governor       The governor every call has to be granted by, or {@code null} for unthrottled calls.
+     */
+    public WeatherAPI(WeatherProvider provider, Duration connectTimeout, Duration requestTimeout, WeatherCache cache,
+                      SnapshotStore snapshots, QuotaGovernor governor) {
+        this.provider = provider;
+        this.client = DEFAULT_CONNECT_TIMEOUT.equals(connectTimeout) ? SHARED_CLIENT : createClient(connectTimeout);
+        this.requestTimeout = requestTimeout;
+        this.cache = cache;
+        this.snapshots = snapshots;
+        this.governor = governor;
+    }
+
+    /**
+     * @return The provider requests are built by.
+     */
+    public WeatherProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * @return The metrics measurements are reported to; {@link WeatherMetrics#NOOP} unless set.
+     */
+    public WeatherMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param metrics The metrics measurements are reported to from now on, e.g. a {@link MetricsRegistry}.
+     */
+    public void setMetrics(WeatherMetrics metrics) {
+        this.metrics = metrics == null ? WeatherMetrics.NOOP : metrics;
+    }
+
+    /**
+     * @return The store the minutely and hourly series of every response are added to, or {@code null}.
+     */
+    public TimeSeriesStore getHistory() {
+        return history;
+    }
+
+    /**
+     * @param history The store the minutely and hourly series of every successful response are added to from now on,
+     *                or {@code null} to keep no history.
+     */
+    public void setHistory(TimeSeriesStore history) {
+        this.history = history;
+    }
+
+    /**
+     * @return The store the alerts of every response are added to, or {@code null}.
+     */
+    public AlertStore getAlerts() {
+        return alerts;
+    }
+
+    /**
+     * @param alerts The store the alerts of every successful response that includes them are added to from now on,
+     *               or {@code null} to not collect alerts.
+     */
+    public void setAlerts(AlertStore alerts) {
+        this.alerts = alerts;
+    }
+
+    /**
+     * @return The radius within which a fresh cached location answers a lookup; 0 if only exact matches are used.
+     */
+    public double getNearbyRadiusKm() {
+        return nearbyRadiusKm;
+    }
+
+    /**
+     * Lets lookups be answered by the nearest cached location within a radius whose data is still fresh,
+     * instead of calling the API for every point, e.g. for manually entered or densely spaced coordinates.
+     *
+     * @param radiusKm The radius in kilometers; 0 to only use the cache entry of the coordinates themselves.
+     */
+    public void setNearbyRadiusKm(double radiusKm) {
+        if (radiusKm < 0) {
+            throw new IllegalArgumentException("radius must not be negative");
+        }
+        this.nearbyRadiusKm = radiusKm;
+    }
+
+    /**
+     * Finds the cached location that would answer a lookup within the nearby radius.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param required  The sections the caller needs.
+     * @return The nearest cached location with fresh required sections, or {@code null} if there is none
+     *         or no cache or radius is configured.
+     */
+    public WeatherCache.CachedLocation findNearbySample(double latitude, double longitude, Set<WeatherSection> required) {
+        double radius = nearbyRadiusKm;
+        return cache == null || radius <= 0 ? null : cache.getNearest(latitude, longitude, required, radius);
+    }
+
+    /**
+     * Returns all cached locations within a bounding box, regardless of their age, e.g. for a region view.
+     * Does not call the API.
+     *
+     * @param minLatitude  The southern edge.
+     * @param minLongitude The western edge.
+     * @param maxLatitude  The northern edge.
+     * @param maxLongitude The eastern edge.
+     * @return The cached locations, empty if there is no cache.
+     */
+    public List<WeatherCache.CachedLocation> getCachedWithin(double minLatitude, double minLongitude,
+                                                             double maxLatitude, double maxLongitude) {
+        return cache == null ? List.of() : cache.getWithin(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    /**
+     * @return The policy failed requests are retried by.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param retryPolicy The policy failed requests are retried by; {@link RetryPolicy#NONE} disables retries.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @param url A request URI.
+     * @return The circuit breaker of the endpoint the request goes to.
+     */
+    public CircuitBreaker getCircuitBreaker(URI url) {
+        return breakers.computeIfAbsent(url.getScheme() + "://" + url.getRawAuthority() + url.getRawPath(),
+                endpoint -> new CircuitBreaker());
+    }
+
+    /**
+     * @return The response cache used by this instance, or {@code null} if there is none.
+     */
+    public WeatherCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return The quota governor used by this instance, or {@code null} if calls are not throttled.
+     */
+    public QuotaGovernor getGovernor() {
+        return governor;
+    }
+
+    /**
+     * Returns the newest payload stored on disk for a location, regardless of its age.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return The newest snapshot, or {@code null} if there is none or no snapshot store is configured.
+     */
+    public SnapshotStore.Snapshot getSnapshot(double latitude, double longitude) {
+        return snapshots == null ? null : snapshots.latest(latitude, longitude);
+    }
+
+    /**
+     * Returns when a payload returned for a location was fetched from the provider. A call that is throttled,
+     * not granted by the quota governor or rejected by an open circuit returns the newest stored payload
+     * instead, which may be days old.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param payload   A payload returned for the location.
+     * @return The time its current conditions were fetched, in epoch milliseconds, or 0 if the payload is
+     *         neither cached nor stored anymore.
+     */
+    public long getFetchedAt(double latitude, double longitude, String payload) {
+        if (cache != null && payload.equals(cache.getStale(latitude, longitude))) {
+            return cache.getFetchedAt(latitude, longitude, WeatherSection.CURRENT);
+        }
+        SnapshotStore.Snapshot snapshot = getSnapshot(latitude, longitude);
+        return snapshot != null && payload.equals(snapshot.payload()) ? snapshot.fetchedAt() : 0;
+    }
+
+    /**
+     * Builds an HTTP/2 capable client. HTTP/2 multiplexes concurrent requests over one connection
+     * and the client falls back to HTTP/1.1 keep-alive if the server does not support it.
+     *
+     * @param connectTimeout The connect timeout for the new client.
+     * @return A new {@code HttpClient}.
+     */
+    private static HttpClient createClient(Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
 
     /**
-     * Fetches weather data for a specific geographic location using OpenWeatherMap API.
+     * Fetches weather data for a specific geographic location from the provider.
      *
      * @param latitude  The latitude of the location for which weather data is to be retrieved.
      * @param longitude The longitude of the location for which weather data is to be retrieved.
      * @return A string containing the weather data in JSON format, or {@code null} if an error occurs.
      */
     public String getWeatherData(double latitude, double longitude) {
-        // Construct the URL with the given coordinates and API key
-        String url = BASE_URL + "?lat=" + latitude + "&lon=" + longitude + "&appid=" + API_KEY;
+        return getWeatherData(latitude, longitude, DEFAULT_SECTIONS);
+    }
 
-        // Create an HttpClient and an HttpRequest
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .build();
+    /**
+     * Fetches weather data for a specific geographic location, answering from the cache if the
+     * required sections of a cached response for the location, or for a location within the nearby radius,
+     * are still fresh. If the location is cached but some required
+     * sections have expired, only those sections are fetched and merged into the cached payload.
+     *
+     * @param latitude  The latitude of the location for which weather data is to be retrieved.
+     * @param longitude The longitude of the location for which weather data is to be retrieved.
+     * @param required  The sections the caller is going to read.
+     * @return A string containing the weather data in JSON format, or {@code null} if an error occurs.
+     */
+    public String getWeatherData(double latitude, double longitude, Set<WeatherSection> required) {
+        if (cache != null) {
+            String cached = cache.get(latitude, longitude, required, nearbyRadiusKm);
+            metrics.recordCacheLookup(cached != null);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
+        CompletableFuture<String> result = fetch(latitude, longitude, sectionsToFetch(latitude, longitude, required));
         try {
-            // Send the request and return the response body
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
-        } catch (IOException | InterruptedException e) {
+            // Wait interruptibly, so a cancelled refresh does not keep its thread blocked
+            return result.get();
+        } catch (ExecutionException e) {
             // Handle exceptions and return null or an appropriate error message
-            e.printStackTrace();
+            e.getCause().printStackTrace();
+            return null;
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
             return null;
         }
     }
+
+    /**
+     * Fetches weather data asynchronously without blocking the calling thread.
+     * Cancelling the returned future only affects this caller, not others waiting for the same coordinates;
+     * once every caller has cancelled, the call itself is stopped and does not use any more of the quota.
+     *
+     * @param latitude  The latitude of the location for which weather data is to be retrieved.
+     * @param longitude The longitude of the location for which weather data is to be retrieved.
+     * @return A future completed with the weather data in JSON format, or with {@code null} if an error occurs.
+     */
+    public CompletableFuture<String> getWeatherDataAsync(double latitude, double longitude) {
+        if (cache != null) {
+            String cached = cache.get(latitude, longitude, DEFAULT_SECTIONS, nearbyRadiusKm);
+            metrics.recordCacheLookup(cached != null);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        return fetch(latitude, longitude, sectionsToFetch(latitude, longitude, DEFAULT_SECTIONS));
+    }
+
+    /**
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param required  The sections the caller needs.
+     * @return The expired required sections if the location is cached, otherwise all sections.
+     */
+    private Set<WeatherSection> sectionsToFetch(double latitude, double longitude, Set<WeatherSection> required) {
+        Set<WeatherSection> expired = cache == null ? null : cache.getExpiredSections(latitude, longitude, required);
+        return expired == null || expired.isEmpty() ? ALL_SECTIONS : expired;
+    }
+
+    /**
+     * Fetches only the given sections of a location, using the API's {@code exclude} parameter for all others,
+     * and merges them into the cached payload. The cache is bypassed for the lookup itself, so this always
+     * asks the API (conditionally, if the sections were fetched before).
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param sections  The sections to fetch.
+     * @return A future completed with the merged payload, or with {@code null} if an error occurs.
+     */
+    public CompletableFuture<String> refreshSections(double latitude, double longitude, Set<WeatherSection> sections) {
+        return fetch(latitude, longitude, EnumSet.copyOf(sections));
+    }
+
+    /**
+     * Starts a call for the given coordinates, or joins the call already in flight for them.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param sections  The sections to fetch; all other sections are excluded from the response.
+     * @return The future of this caller; completed with {@code null} if the call failed or was not granted.
+     *         Cancelling it leaves the call, see {@link SharedCall}.
+     */
+    private CompletableFuture<String> fetch(double latitude, double longitude, Set<WeatherSection> sections) {
+        URI url = provider.requestUri(latitude, longitude, sections);
+
+        while (true) {
+            SharedCall existing = inFlight.get(url);
+            if (existing != null) {
+                if (existing.join()) {
+                    return existing.waiter();
+                }
+                // Abandoned by all its callers and about to go away; start a new call instead
+                inFlight.remove(url, existing);
+                continue;
+            }
+            SharedCall call = new SharedCall();
+            if (inFlight.putIfAbsent(url, call) != null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            call.result.whenComplete((body, e) -> {
+                inFlight.remove(url, call);
+                CompletableFuture<?> exchange = call.exchange;
+                if (call.isAbandoned()) {
+                    if (exchange != null) {
+                        exchange.cancel(true);
+                    }
+                } else {
+                    metrics.recordLatency(WeatherMetrics.Stage.FETCH, System.nanoTime() - start);
+                }
+            });
+            send(latitude, longitude, sections, url, call, 1, start);
+            return call.waiter();
+        }
+    }
+
+    /**
+     * Sends a request once the circuit breaker of its endpoint and the quota governor grant it.
+     * While the circuit is open, or the daily quota is exhausted, the cached data is used instead.
+     * If the rate is exceeded and cached data exists, the cached data is used instead; without cached data
+     * the request is delayed until a token is available.
+     * If the location is cached, the request is sent conditionally with the validators of the last response.
+     * A transient failure is retried after a backoff as long as the retry policy allows it.
+     * Nothing is sent once the call has been abandoned by all its callers.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param sections  The sections requested.
+     * @param url       The request URL.
+     * @param call      The call to complete with the result.
+     * @param attempt   The number of this attempt, starting at 1.
+     * @param startedAt The {@link System#nanoTime()} the call started at.
+     */
+    private void send(double latitude, double longitude, Set<WeatherSection> sections, URI url,
+                      SharedCall call, int attempt, long startedAt) {
+        if (call.isAbandoned()) {
+            return;
+        }
+        CircuitBreaker breaker = getCircuitBreaker(url);
+        if (!breaker.tryAcquire()) {
+            reject(latitude, longitude, "circuit open", call);
+            return;
+        }
+        if (governor != null) {
+            switch (governor.tryAcquire(() -> getStaleData(latitude, longitude) != null)) {
+                case EXHAUSTED -> {
+                    breaker.release();
+                    reject(latitude, longitude, "quota exhausted", call);
+                    return;
+                }
+                case THROTTLED -> {
+                    breaker.release();
+                    String fallback = getStaleData(latitude, longitude);
+                    if (fallback != null) {
+                        call.result.complete(fallback);
+                    } else {
+                        CompletableFuture.delayedExecutor(governor.nanosUntilNextToken(), TimeUnit.NANOSECONDS)
+                                .execute(() -> send(latitude, longitude, sections, url, call, attempt, startedAt));
+                    }
+                    return;
+                }
+                default -> {
+                    // granted
+                }
+            }
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(url)
+                .timeout(requestTimeout)
+                .GET();
+        Validators known = validators.get(url);
+        if (known != null && cache != null && cache.getStale(latitude, longitude) != null) {
+            if (known.etag() != null) {
+                request.header("If-None-Match", known.etag());
+            }
+            if (known.lastModified() != null) {
+                request.header("If-Modified-Since", known.lastModified());
+            }
+        }
+
+        // A probe of a half-open circuit is not hedged, so a recovering endpoint gets a single request
+        boolean mayHedge = breaker.getState() == CircuitBreaker.State.CLOSED;
+        CompletableFuture<HttpResponse<String>> exchange =
+                exchange(request.build(), latitude, longitude, sections, attempt, mayHedge);
+        call.exchange = exchange;
+        if (call.isAbandoned()) {
+            exchange.cancel(true);
+        }
+        exchange.whenComplete((response, e) -> {
+            // A 429 only limits this client, the endpoint itself is healthy
+            if (response == null ? RetryPolicy.isRetryable(e) : RetryPolicy.isRetryable(response.statusCode())) {
+                breaker.onFailure();
+            } else if (response != null && response.statusCode() != 429) {
+                breaker.onSuccess();
+            } else {
+                breaker.release();
+            }
+
+            if (call.isAbandoned()) {
+                return;
+            }
+
+            boolean retryable = response == null ? RetryPolicy.isRetryable(e) : RetryPolicy.isRetryable(response);
+            long delay = retryable
+                    ? retryPolicy.nextDelayNanos(attempt, System.nanoTime() - startedAt, response)
+                    : -1;
+            if (delay >= 0) {
+                // I/O errors are counted by sendOnce; the retry itself shows up as the attempt of its JFR event
+                if (response != null) {
+                    metrics.countError("HTTP " + response.statusCode());
+                }
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS)
+                        .execute(() -> send(latitude, longitude, sections, url, call, attempt + 1, startedAt));
+                return;
+            }
+
+            if (response == null) {
+                e.printStackTrace();
+                call.result.complete(null);
+                return;
+            }
+            try {
+                call.result.complete(handleResponse(latitude, longitude, sections, url, response));
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+                call.result.complete(null);
+            }
+        });
+    }
+
+    /**
+     * Sends a request and, if it is still outstanding after the hedging delay and the quota governor grants
+     * another call, the same request a second time. The first response wins and the other request is cancelled;
+     * the exchange only fails if all requests failed.
+     *
+     * @param request   The request.
+     * @param latitude  The latitude of the location, for the JFR event.
+     * @param longitude The longitude of the location, for the JFR event.
+     * @param sections  The sections requested, for the JFR event.
+     * @param attempt   The number of the attempt, for the JFR event.
+     * @param mayHedge  Whether a second request may be sent.
+     * @return The future of the first response.
+     */
+    private CompletableFuture<HttpResponse<String>> exchange(HttpRequest request, double latitude, double longitude,
+                                                             Set<WeatherSection> sections, int attempt,
+                                                             boolean mayHedge) {
+        long hedgeDelay = mayHedge ? hedgeDelayNanos() : 0;
+        if (hedgeDelay <= 0) {
+            return sendOnce(request, latitude, longitude, sections, attempt, false);
+        }
+
+        CompletableFuture<HttpResponse<String>> first = new CompletableFuture<>();
+        List<CompletableFuture<HttpResponse<String>>> requests = new CopyOnWriteArrayList<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        first.whenComplete((response, e) -> requests.forEach(sent -> sent.cancel(true)));
+
+        CompletableFuture<HttpResponse<String>> primary = sendOnce(request, latitude, longitude, sections, attempt, false);
+        requests.add(primary);
+        primary.whenComplete((response, e) -> settle(first, outstanding, response, e));
+
+        CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS).execute(() -> {
+            // Only hedge while nothing has settled, and never spend the reserve of the quota on it;
+            // a failed primary is left to the retry policy
+            if (first.isDone() || governor != null && governor.tryAcquire(true) != QuotaGovernor.Decision.ALLOW) {
+                return;
+            }
+            if (outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                return;
+            }
+            CompletableFuture<HttpResponse<String>> hedge = sendOnce(request, latitude, longitude, sections, attempt, true);
+            requests.add(hedge);
+            hedge.whenComplete((response, e) -> settle(first, outstanding, response, e));
+            if (first.isDone()) {
+                hedge.cancel(true);
+            }
+        });
+        return first;
+    }
+
+    /**
+     * Completes a hedged exchange with the first response, or with the failure of the last request.
+     */
+    private static void settle(CompletableFuture<HttpResponse<String>> first, AtomicInteger outstanding,
+                               HttpResponse<String> response, Throwable e) {
+        if (response != null) {
+            first.complete(response);
+        } else if (outstanding.decrementAndGet() == 0) {
+            first.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Sends a single request and records its timings, size and errors in the metrics and as a JFR event.
+     *
+     * @param request   The request.
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param sections  The sections requested.
+     * @param attempt   The number of the attempt.
+     * @param hedge     Whether this is the second request of a hedged exchange.
+     * @return The future of the response; cancelling it aborts the request.
+     */
+    private CompletableFuture<HttpResponse<String>> sendOnce(HttpRequest request, double latitude, double longitude,
+                                                             Set<WeatherSection> sections, int attempt,
+                                                             boolean hedge) {
+        WeatherEvents.Fetch event = new WeatherEvents.Fetch();
+        event.begin();
+        long sentAt = System.nanoTime();
+        long[] headersAt = new long[1];
+        HttpResponse.BodyHandler<String> bodyHandler = responseInfo -> {
+            // Invoked once the status line and headers have been received
+            headersAt[0] = System.nanoTime();
+            return HttpResponse.BodyHandlers.ofString().apply(responseInfo);
+        };
+
+        CompletableFuture<HttpResponse<String>> sent = client.sendAsync(request, bodyHandler);
+        sent.whenComplete((response, e) -> {
+            long receivedAt = System.nanoTime();
+            boolean cancelled = e instanceof CancellationException;
+            if (headersAt[0] != 0 && !cancelled) {
+                metrics.recordLatency(WeatherMetrics.Stage.TTFB, headersAt[0] - sentAt);
+                metrics.recordLatency(WeatherMetrics.Stage.BODY, receivedAt - headersAt[0]);
+            }
+            if (response != null) {
+                metrics.recordResponseSize(response.body().length());
+                recordRoundTrip(receivedAt - sentAt);
+            } else if (!cancelled) {
+                metrics.countError(errorType(e));
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.provider = provider.name();
+                event.latitude = latitude;
+                event.longitude = longitude;
+                event.sections = sections.toString();
+                event.attempt = attempt;
+                event.hedge = hedge;
+                event.ttfb = headersAt[0] == 0 ? 0 : headersAt[0] - sentAt;
+                event.body = headersAt[0] == 0 ? 0 : receivedAt - headersAt[0];
+                if (response != null) {
+                    event.status = response.statusCode();
+                    event.responseSize = response.body().length();
+                } else {
+                    event.error = errorType(e);
+                }
+                event.commit();
+            }
+        });
+        return sent;
+    }
+
+    private void recordRoundTrip(long nanos) {
+        Histogram current = recentRoundTrips;
+        current.record(nanos);
+        if (current.getCount() >= HEDGE_WINDOW) {
+            synchronized (this) {
+                if (recentRoundTrips == current) {
+                    previousRoundTrips = current;
+                    recentRoundTrips = new Histogram();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The time after which a request is hedged: the 95th percentile of the recent round trips,
+     *         but at least {@link #MIN_HEDGE_DELAY_NANOS}; 0 while too few requests have been made.
+     */
+    private long hedgeDelayNanos() {
+        Histogram window = recentRoundTrips;
+        if (window.getCount() < HEDGE_MIN_SAMPLES) {
+            window = previousRoundTrips;
+            if (window.getCount() < HEDGE_MIN_SAMPLES) {
+                return 0;
+            }
+        }
+        long delay = Math.max(MIN_HEDGE_DELAY_NANOS, window.getPercentile(HEDGE_PERCENTILE));
+        // A hedge that could not answer before the request times out is pointless
+        return delay < requestTimeout.toNanos() ? delay : 0;
+    }
+
+    /**
+     * @param e The exception a call failed with.
+     * @return The simple class name of the underlying exception, e.g. {@code "HttpTimeoutException"}.
+     */
+    private static String errorType(Throwable e) {
+        Throwable cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Answers a call that may not be sent with the newest data known for the location, if any,
+     * and reports why it was not sent. Callers tell the answer from fresh data by {@link #getFetchedAt}.
+     * A circuit stays open for minutes, so the age of the answer is recorded as well.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param reason    Why the call was not sent, e.g. {@code "circuit open"}.
+     * @param call      The call to complete.
+     */
+    private void reject(double latitude, double longitude, String reason, SharedCall call) {
+        String fallback = getStaleData(latitude, longitude);
+        metrics.countError(reason);
+        WeatherEvents.Rejected event = new WeatherEvents.Rejected();
+        if (event.shouldCommit()) {
+            event.provider = provider.name();
+            event.latitude = latitude;
+            event.longitude = longitude;
+            event.reason = reason;
+            event.fallback = fallback != null;
+            if (fallback != null) {
+                long fetchedAt = getFetchedAt(latitude, longitude, fallback);
+                event.fallbackAge = fetchedAt == 0 ? 0 : Math.max(0, System.currentTimeMillis() - fetchedAt);
+            }
+            event.commit();
+        }
+        call.result.complete(fallback);
+    }
+
+    /**
+     * Returns the newest data known for a location regardless of its age, from the cache or the snapshot store.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return The JSON payload, or {@code null} if nothing is known about the location.
+     */
+    private String getStaleData(double latitude, double longitude) {
+        String stale = cache == null ? null : cache.getStale(latitude, longitude);
+        if (stale == null) {
+            SnapshotStore.Snapshot snapshot = getSnapshot(latitude, longitude);
+            stale = snapshot == null ? null : snapshot.payload();
+        }
+        return stale;
+    }
+
+    /**
+     * Checks the status of a response and stores successful payloads in the cache and the snapshot store.
+     * Error bodies (e.g. an exhausted quota) are not weather data and must never be cached.
+     * A partial response is merged into the cached payload; {@code 304 Not Modified} keeps the cached payload.
+     *
+     * @param latitude  The latitude of the request.
+     * @param longitude The longitude of the request.
+     * @param sections  The sections that were requested.
+     * @param url       The request URL.
+     * @param response  The HTTP response.
+     * @return The (merged) payload, or {@code null} if the request was not successful.
+     */
+    private String handleResponse(double latitude, double longitude, Set<WeatherSection> sections, URI url,
+                                  HttpResponse<String> response) {
+        if (response.statusCode() == 304 && cache != null) {
+            String cached = cache.touch(latitude, longitude, sections);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (response.statusCode() != 200) {
+            // Counted here and recorded with its status in the JFR event; printing would flood stderr during an outage
+            metrics.countError("HTTP " + response.statusCode());
+            return null;
+        }
+
+        rememberValidators(url, response);
+        String body = response.body();
+        if (cache != null) {
+            if (sections.size() == ALL_SECTIONS.size()) {
+                cache.put(latitude, longitude, body);
+            } else {
+                body = cache.merge(latitude, longitude, body, sections);
+            }
+        }
+        if (snapshots != null) {
+            snapshots.append(latitude, longitude, System.currentTimeMillis(), body);
+        }
+        recordSeriesAndAlerts(latitude, longitude, sections, body);
+        return body;
+    }
+
+    /**
+     * Adds the minutely and hourly series of a fetched payload to the history and its alerts to the alert store,
+     * decoding only the fetched sections of these in a single pass.
+     */
+    private void recordSeriesAndAlerts(double latitude, double longitude, Set<WeatherSection> sections, String body) {
+        TimeSeriesStore historyStore = history;
+        AlertStore alertStore = alerts;
+        Set<WeatherSection> decoded = EnumSet.noneOf(WeatherSection.class);
+        if (historyStore != null) {
+            for (WeatherSection section : HISTORY_SECTIONS) {
+                if (sections.contains(section)) {
+                    decoded.add(section);
+                }
+            }
+        }
+        if (alertStore != null && sections.contains(WeatherSection.ALERTS)) {
+            decoded.add(WeatherSection.ALERTS);
+        }
+        if (decoded.isEmpty()) {
+            return;
+        }
+        try {
+            OneCallData data = OneCallParser.parse(body, decoded);
+            if (historyStore != null) {
+                historyStore.ingest(latitude, longitude, data);
+            }
+            if (data.getAlerts() != null) {
+                alertStore.ingest(latitude, longitude, data.getAlerts());
+            }
+        } catch (IllegalArgumentException e) {
+            metrics.countError("parse");
+            e.printStackTrace();
+        }
+    }
+
+    private void rememberValidators(URI url, HttpResponse<String> response) {
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        if (etag == null && lastModified == null) {
+            validators.remove(url);
+            return;
+        }
+        if (validators.size() >= MAX_VALIDATORS) {
+            validators.clear();
+        }
+        validators.put(url, new Validators(etag, lastModified));
+    }
 }
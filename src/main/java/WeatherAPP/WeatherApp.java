@@ -2,7 +2,7 @@ package WeatherAPP;
 
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.concurrent.Task;
+import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.LineChart;
@@ -12,15 +12,19 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The WeatherApp class represents a weather dashboard application using JavaFX.
@@ -31,21 +35,103 @@ public class WeatherApp extends Application {
 
     // declaration for UI components
     private ComboBox<String> citySelection;
-    private Button refreshButton, confirmButton, graphButton;
+    private Button refreshButton, confirmButton, graphButton, regionButton, historyButton;
     private TextField latitudeInput, longitudeInput;
     private Label manualEntryErrorLabel;
     private Label lastUpdateLabel;
     private Label temperatureLabel, feelsLikeLabel, humidityLabel, pressureLabel, windSpeedLabel;
     private Label visibilityLabel, sunriseLabel, sunsetLabel, dateLabel;
     private Label weatherAlertsLabel;
-    private String weatherDataJson;
+    private Label alertNotificationLabel;
+    private Stage graphStage;
+    private RegionView regionView;
+    private Stage historyStage;
+    private TimeSeriesChart historyChart;
+    private ComboBox<String> historyMetricSelection;
+
+    // Labels and chart are bound to this model, which only pushes fields that changed
+    private final WeatherViewModel viewModel = new WeatherViewModel();
+
+    // Sections decoded for the dashboard; everything else in the payload is skipped by the parser
+    private static final Set<WeatherSection> DISPLAYED_SECTIONS =
+            EnumSet.of(WeatherSection.CURRENT, WeatherSection.DAILY, WeatherSection.ALERTS);
+
+    // Reused across refreshes so the underlying HTTP connections are pooled and responses cached
+    private final WeatherAPI weatherAPI = new WeatherAPI(new WeatherCache(), new SnapshotStore(), new QuotaGovernor());
+
+    // Fetch, parse and FX timings; printed on exit when started with -Dweather.metrics=true
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    // Manually entered coordinates within this distance of a freshly fetched location are answered from its data
+    private static final double NEARBY_RADIUS_KM = 2.0;
+
+    // Minutely and hourly forecast history of all fetched locations, compressed in memory
+    private final TimeSeriesStore history = new TimeSeriesStore();
+
+    // Alerts of all fetched locations; changes are shown as a notification, drained on the FX thread
+    private final AlertStore alerts = new AlertStore();
+    private final AlertStore.Subscription alertChanges =
+            alerts.subscribe(AlertStore.DEFAULT_QUEUE_CAPACITY, () -> Platform.runLater(this::showAlertChanges));
+
+    // Metrics offered in the history window, by their label
+    private static final Map<String, TimeSeriesStore.Metric> HISTORY_METRICS = new LinkedHashMap<>();
+    private static final Map<TimeSeriesStore.Metric, String> HISTORY_UNITS = new EnumMap<>(TimeSeriesStore.Metric.class);
+
+    static {
+        HISTORY_METRICS.put("Temperatur", TimeSeriesStore.Metric.TEMP);
+        HISTORY_METRICS.put("Gefühlte Temperatur", TimeSeriesStore.Metric.FEELS_LIKE);
+        HISTORY_METRICS.put("Niederschlag (minütlich)", TimeSeriesStore.Metric.PRECIPITATION);
+        HISTORY_METRICS.put("Luftfeuchtigkeit", TimeSeriesStore.Metric.HUMIDITY);
+        HISTORY_METRICS.put("Luftdruck", TimeSeriesStore.Metric.PRESSURE);
+        HISTORY_METRICS.put("Windgeschwindigkeit", TimeSeriesStore.Metric.WIND_SPEED);
+        HISTORY_UNITS.put(TimeSeriesStore.Metric.TEMP, "°C");
+        HISTORY_UNITS.put(TimeSeriesStore.Metric.FEELS_LIKE, "°C");
+        HISTORY_UNITS.put(TimeSeriesStore.Metric.PRECIPITATION, "mm/h");
+        HISTORY_UNITS.put(TimeSeriesStore.Metric.HUMIDITY, "%");
+        HISTORY_UNITS.put(TimeSeriesStore.Metric.PRESSURE, "hPa");
+        HISTORY_UNITS.put(TimeSeriesStore.Metric.WIND_SPEED, "km/h");
+    }
+
+    // Runs fetches one at a time; a newer selection cancels the older fetch and its results are never shown
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler(Platform::runLater);
+
+    // Keeps the displayed location up to date in the background, fetching only the sections that are due
+    private final AutoRefresher autoRefresher = new AutoRefresher(weatherAPI, this::onAutoRefresh);
+    private Location displayedLocation; // only accessed on the FX thread
+    private boolean firstDataShown; // only accessed on the FX thread
+
+    /**
+     * Creates the application; called by the JavaFX launcher, which needs a public no-argument constructor.
+     */
+
+    public WeatherApp() {
+    }
+
+    /**
+     * Configures the weather API and starts fetching the default location on the launcher thread,
+     * before the toolkit calls {@code start}. The fetch runs while the window is built; the initial
+     * {@code updateWeatherData} joins it instead of sending a second request.
+     */
 
+    @Override
+    public void init() {
+        weatherAPI.setMetrics(metrics);
+        weatherAPI.setHistory(history);
+        weatherAPI.setAlerts(alerts);
+        weatherAPI.setNearbyRadiusKm(NEARBY_RADIUS_KM);
+
+        Location initial = Location.PRESETS.get(0);
+        weatherAPI.getWeatherDataAsync(initial.latitude(), initial.longitude());
+    }
 
     /**
      * Initializes and displays the primary stage (window) of the JavaFX application.
      * This method sets up the main user interface for the weather dashboard.
      * It arranges UI components within a {@code GridPane}, sets the scene, and shows the primary stage.
-     * Additionally, it calls {@code updateWeatherData} to load the initial weather data.
+     * Additionally, it calls {@code updateWeatherData} to load the initial weather data, rendering the newest
+     * stored snapshot first so the window is filled before the network round trip completes.
+     * Only the components showing the weather are built before the window is shown; the manual entry and
+     * the buttons for the other windows are added afterwards, so the window does not wait for them.
      *
      * @param primaryStage The primary stage for this application, onto which the scene is set.
      *                     This stage is created by the JavaFX platform.
@@ -61,20 +147,46 @@ public class WeatherApp extends Application {
         grid.setVgap(10);
 
         initializeUIComponents(grid);
-        initializeManualEntryComponents(grid);
 
         Scene scene = new Scene(grid, 600, 400);
         primaryStage.setScene(scene);
         primaryStage.show();
 
-        updateWeatherData(null, null); // Lädt die Anfangswerte
+        updateWeatherData(null, null, true); // Lädt die Anfangswerte, zuerst aus dem lokalen Speicher
 
+        Platform.runLater(() -> {
+            initializeWindowButtons(grid);
+            initializeManualEntryComponents(grid);
+            showAlertChanges();
+        });
+    }
+
+    /**
+     * Stops the refresh scheduler, the auto refresher and the region view when the application exits,
+     * cancelling any fetch still running, and merges the calls not yet saved into the quota state file.
+     */
+
+    @Override
+    public void stop() {
+        autoRefresher.close();
+        refreshScheduler.close();
+        if (regionView != null) {
+            regionView.close();
+        }
+        alertChanges.close();
+        QuotaGovernor governor = weatherAPI.getGovernor();
+        if (governor != null) {
+            governor.flush();
+        }
+        if (Boolean.getBoolean("weather.metrics")) {
+            System.err.print(metrics.report());
+        }
     }
 
     /**
      * Initializes and adds UI components to the given GridPane for the weather dashboard.
      * This method sets up various UI elements such as a ComboBox for city selection,
-     * a refresh button, labels for displaying weather information, and a button to display the temperature graph.
+     * a refresh button and labels for displaying weather information.
      * It also configures action handlers for interactive components to trigger relevant actions.
      *
      * @param grid The GridPane to which the UI components are added. This should be part of the primary scene layout.
@@ -82,35 +194,48 @@ public class WeatherApp extends Application {
 
     private void initializeUIComponents(GridPane grid) {
         citySelection = new ComboBox<>();
-        citySelection.getItems().addAll("Salzburg", "Wien", "Graz", "Innsbruck", "Linz");
-        citySelection.setValue("Salzburg");
+        for (Location location : Location.PRESETS) {
+            citySelection.getItems().add(location.name());
+        }
+        citySelection.setValue(Location.PRESETS.get(0).name());
         citySelection.setOnAction(event -> updateWeatherData(null, null));
 
         refreshButton = new Button("Aktualisieren");
         refreshButton.setOnAction(event -> updateWeatherData(null, null));
 
 
-        lastUpdateLabel = new Label("Letzte Aktualisierung: Nicht verfügbar");
+        lastUpdateLabel = new Label();
+        lastUpdateLabel.textProperty().bind(viewModel.lastUpdateProperty());
         grid.add(lastUpdateLabel, 3, 15, 2, 1);
 
 
-        weatherAlertsLabel = new Label("Wetterwarnungen: Keine");
+        weatherAlertsLabel = new Label();
+        weatherAlertsLabel.textProperty().bind(viewModel.alertsProperty());
         grid.add(weatherAlertsLabel, 2, 5, 2, 1);
 
-        graphButton = new Button("Zeige Graph");
-        graphButton.setOnAction(event -> showGraphWindow());
-        grid.add(graphButton, 0, 10);
-
-
-        temperatureLabel = new Label("Temperatur: ");
-        feelsLikeLabel = new Label("Fühlt sich an wie: ");
-        humidityLabel = new Label("Luftfeuchtigkeit: ");
-        pressureLabel = new Label("Luftdruck: ");
-        windSpeedLabel = new Label("Windgeschwindigkeit: ");
-        visibilityLabel = new Label("Sicht: ");
-        sunriseLabel = new Label("Sonnenaufgang: ");
-        sunsetLabel = new Label("Sonnenuntergang: ");
-        dateLabel = new Label("Datum: ");
+        alertNotificationLabel = new Label();
+        grid.add(alertNotificationLabel, 2, 4, 2, 1);
+
+
+        temperatureLabel = new Label();
+        feelsLikeLabel = new Label();
+        humidityLabel = new Label();
+        pressureLabel = new Label();
+        windSpeedLabel = new Label();
+        visibilityLabel = new Label();
+        sunriseLabel = new Label();
+        sunsetLabel = new Label();
+        dateLabel = new Label();
+
+        temperatureLabel.textProperty().bind(viewModel.temperatureProperty());
+        feelsLikeLabel.textProperty().bind(viewModel.feelsLikeProperty());
+        humidityLabel.textProperty().bind(viewModel.humidityProperty());
+        pressureLabel.textProperty().bind(viewModel.pressureProperty());
+        windSpeedLabel.textProperty().bind(viewModel.windSpeedProperty());
+        visibilityLabel.textProperty().bind(viewModel.visibilityProperty());
+        sunriseLabel.textProperty().bind(viewModel.sunriseProperty());
+        sunsetLabel.textProperty().bind(viewModel.sunsetProperty());
+        dateLabel.textProperty().bind(viewModel.dateProperty());
 
         grid.add(citySelection, 0, 0);
         grid.add(refreshButton, 1, 0);
@@ -125,6 +250,26 @@ public class WeatherApp extends Application {
         grid.add(dateLabel, 0, 9);
     }
 
+    /**
+     * Adds the buttons that open the graph, region and history windows. The windows themselves
+     * are only created when they are first opened.
+     *
+     * @param grid The GridPane to which the buttons are added.
+     */
+    private void initializeWindowButtons(GridPane grid) {
+        graphButton = new Button("Zeige Graph");
+        graphButton.setOnAction(event -> showGraphWindow());
+        grid.add(graphButton, 0, 10);
+
+        regionButton = new Button("Regionsansicht");
+        regionButton.setOnAction(event -> showRegionView());
+        grid.add(regionButton, 1, 10);
+
+        historyButton = new Button("Zeige Verlauf");
+        historyButton.setOnAction(event -> showHistoryWindow());
+        grid.add(historyButton, 0, 11);
+    }
+
     /**
      * Initializes components for manual entry of latitude and longitude coordinates in the weather dashboard.
      * This method sets up text fields for latitude and longitude input, a confirm button to submit the entered coordinates,
@@ -180,8 +325,9 @@ public class WeatherApp extends Application {
 
     /**
      * Updates the weather data by either using provided latitude and longitude or selecting default coordinates
-     * based on the selected city from the ComboBox. This method creates and starts a background task
-     * to fetch weather data asynchronously, ensuring the UI remains responsive.
+     * based on the selected city from the ComboBox. This method submits a job to the refresh scheduler
+     * to fetch weather data in the background, ensuring the UI remains responsive. Rapid repeated calls are
+     * debounced and a newer call supersedes any fetch still running, so only the latest selection is shown.
      *
      * The method uses default coordinates for predefined cities if latitude and longitude are not provided.
      * It then makes a call to a weather API and updates the UI with the retrieved data. If the API call fails,
@@ -196,137 +342,304 @@ public class WeatherApp extends Application {
      *                  uses the longitude of the selected city from the ComboBox.
      */
     private void updateWeatherData(Double latitude, Double longitude) {
-        Task<Void> weatherTask = new Task<Void>() {
-            @Override
-            protected Void call() {
-                Double finalLatitude = latitude;
-                Double finalLongitude = longitude;
-
-                if (finalLatitude == null || finalLongitude == null) {
-                    String selectedCity = citySelection.getValue();
-                    switch (selectedCity) {
-                        case "Wien":
-                            finalLatitude = 48.2082;
-                            finalLongitude = 16.3738;
-                            break;
-                        case "Graz":
-                            finalLatitude = 47.0707;
-                            finalLongitude = 15.4395;
-                            break;
-                        case "Innsbruck":
-                            finalLatitude = 47.2692;
-                            finalLongitude = 11.4041;
-                            break;
-                        case "Linz":
-                            finalLatitude = 48.3069;
-                            finalLongitude = 14.2858;
-                            break;
-                        default:
-                            finalLatitude = 47.8112; // Salzburg
-                            finalLongitude = 13.0332;
-                            break;
-                    }
+        updateWeatherData(latitude, longitude, false);
+    }
+
+    /**
+     * Updates the weather data as described in {@link #updateWeatherData(Double, Double)}.
+     * If the fetch fails, the newest snapshot stored on disk is shown instead of blanking the labels.
+     *
+     * @param latitude          The latitude coordinate, or null to use the selected city.
+     * @param longitude         The longitude coordinate, or null to use the selected city.
+     * @param showSnapshotFirst Whether to render the newest stored snapshot before the fetch starts.
+     *                          This is used for the initial load, which is not debounced.
+     */
+    private void updateWeatherData(Double latitude, Double longitude, boolean showSnapshotFirst) {
+        // Resolve the coordinates on the FX thread, where the ComboBox may be read
+        Location location;
+        if (latitude != null && longitude != null) {
+            // Snap to a nearby location with fresh data, so neither this fetch nor the auto refresh calls the API
+            WeatherCache.CachedLocation sample =
+                    weatherAPI.findNearbySample(latitude, longitude, WeatherAPI.DEFAULT_SECTIONS);
+            location = sample == null ? new Location("Manuell", latitude, longitude)
+                    : new Location("Manuell", sample.latitude(), sample.longitude());
+        } else {
+            location = Location.preset(citySelection.getValue());
+        }
+        updateWeatherData(location, showSnapshotFirst);
+    }
+
+    /**
+     * Updates the weather data for a location as described in {@link #updateWeatherData(Double, Double)}
+     * and makes it the location kept up to date by the auto refresher.
+     *
+     * @param location          The location to show.
+     * @param showSnapshotFirst Whether to render the newest stored snapshot before the fetch starts.
+     */
+    private void updateWeatherData(Location location, boolean showSnapshotFirst) {
+        double finalLatitude = location.latitude();
+        double finalLongitude = location.longitude();
+        if (!location.equals(displayedLocation)) {
+            displayedLocation = location;
+            autoRefresher.untrackAll();
+            autoRefresher.track(location);
+        }
+        Duration debounce = showSnapshotFirst ? Duration.ZERO : RefreshScheduler.DEFAULT_DEBOUNCE;
+
+        refreshScheduler.submit(debounce, refresh -> {
+            SnapshotStore.Snapshot snapshot = null;
+            if (showSnapshotFirst) {
+                snapshot = weatherAPI.getSnapshot(finalLatitude, finalLongitude);
+                if (snapshot != null && !applyWeatherData(snapshot.payload(), snapshot.fetchedAt(), true, refresh)) {
+                    snapshot = null; // unreadable; the fetch still runs and the snapshot is not used as fallback
                 }
+            }
+
+            String weatherData = weatherAPI.getWeatherData(finalLatitude, finalLongitude);
+            if (refresh.isSuperseded()) {
+                return;
+            }
 
-                WeatherAPI weatherAPI = new WeatherAPI();
-                String weatherData = weatherAPI.getWeatherData(finalLatitude, finalLongitude);
-
-                if (weatherData != null) {
-
-                    weatherDataJson = weatherData;
-                    JSONObject json = new JSONObject(weatherData);
-                    JSONObject current = json.getJSONObject("current");
-
-                    double tempKelvin = current.getDouble("temp");
-                    double feelsLikeKelvin = current.getDouble("feels_like");
-                    double tempCelsius = kelvinToCelsius(tempKelvin);
-                    double feelsLikeCelsius = kelvinToCelsius(feelsLikeKelvin);
-                    int humidity = current.getInt("humidity");
-                    int pressure = current.getInt("pressure");
-                    double windSpeedMps = current.getDouble("wind_speed");
-                    double windSpeedKmh = mpsToKmh(windSpeedMps);
-                    int visibility = current.getInt("visibility");
-                    long sunriseTime = current.getLong("sunrise");
-                    long sunsetTime = current.getLong("sunset");
-                    String sunrise = formatUnixTime(sunriseTime);
-                    String sunset = formatUnixTime(sunsetTime);
-                    String currentDate = formatDate(Instant.now().getEpochSecond());
-
-                    Platform.runLater(() -> {
-                        lastUpdateLabel.setText("Letzte Aktualisierung: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")));
-                        temperatureLabel.setText(String.format("Temperatur: %.2f °C", tempCelsius));
-                        feelsLikeLabel.setText(String.format("Fühlt sich an wie: %.2f °C", feelsLikeCelsius));
-                        humidityLabel.setText("Luftfeuchtigkeit: " + humidity + "%");
-                        pressureLabel.setText("Luftdruck: " + pressure + " hPa");
-                        windSpeedLabel.setText(String.format("Windgeschwindigkeit: %.2f km/h", windSpeedKmh));
-                        visibilityLabel.setText("Sicht: " + visibility + " m");
-                        sunriseLabel.setText("Sonnenaufgang: " + sunrise);
-                        sunsetLabel.setText("Sonnenuntergang: " + sunset);
-                        dateLabel.setText("Datum: " + currentDate);
-
-                        if (json.has("alerts")) {
-                            JSONArray alerts = json.getJSONArray("alerts");
-                            StringBuilder alertsText = new StringBuilder("Wetterwarnungen:\n");
-                            for (int i = 0; i < alerts.length(); i++) {
-                                JSONObject alert = alerts.getJSONObject(i);
-                                String event = alert.getString("event");
-                                String description = alert.getString("description");
-                                alertsText.append(event).append("\n").append(description).append("\n\n");
-                            }
-                            weatherAlertsLabel.setText(alertsText.toString());
-                        } else {
-                            weatherAlertsLabel.setText("Wetterwarnungen: Keine");
-                        }
-                    });
-                } else {
-                    Platform.runLater(() -> {
-                        setLabelsToUnavailable();
-                        lastUpdateLabel.setText("Letzte Aktualisierung: Fehlgeschlagen");
-                    });
+            if (weatherData != null) {
+                // Calls the API could not take return stored data, which must not be shown as just fetched
+                long now = System.currentTimeMillis();
+                long fetchedAt = weatherAPI.getFetchedAt(finalLatitude, finalLongitude, weatherData);
+                boolean stored = fetchedAt != 0 && now - fetchedAt > WeatherSection.CURRENT.defaultTtl().toMillis();
+                if (applyWeatherData(weatherData, fetchedAt != 0 ? fetchedAt : now, stored, refresh)) {
+                    return;
                 }
-                return null;
             }
+            if (snapshot == null && !showSnapshotFirst) {
+                snapshot = weatherAPI.getSnapshot(finalLatitude, finalLongitude);
+            }
+            if (snapshot == null || !applyWeatherData(snapshot.payload(), snapshot.fetchedAt(), true, refresh)) {
+                refresh.publish(this::setLabelsToUnavailable);
+            }
+        });
+    }
+
+    /**
+     * Called by the auto refresher after it refreshed a location in the background.
+     * If the location is still displayed, the labels are updated from the now fresh cache.
+     *
+     * @param location The refreshed location.
+     * @param payload  The refreshed payload.
+     */
+    private void onAutoRefresh(Location location, String payload) {
+        Platform.runLater(() -> {
+            if (location.equals(displayedLocation)) {
+                updateWeatherData(location, false);
+            }
+        });
+    }
+
+    /**
+     * Parses a One Call payload and shows its values in the labels.
+     * The payload is decoded once into a {@link OneCallData}, which the view model keeps for the temperature graph.
+     * The parsing runs on the calling (background) thread; on the FX thread the view model only pushes
+     * the values that changed since the last update. Parse time, FX queue wait and apply time are measured.
+     *
+     * @param payload      The JSON payload.
+     * @param fetchedAt    The time the payload was fetched, in epoch milliseconds.
+     * @param fromSnapshot Whether the payload is stored data, from the snapshot store or returned instead of a
+     *                     call the API could not take, rather than a fresh fetch.
+     * @param refresh      The refresh this payload belongs to; nothing is shown if it has been superseded.
+     * @return {@code false} if the payload could not be parsed; nothing is shown then.
+     */
+    private boolean applyWeatherData(String payload, long fetchedAt, boolean fromSnapshot,
+                                     RefreshScheduler.Refresh refresh) {
+        WeatherEvents.Parse parseEvent = new WeatherEvents.Parse();
+        parseEvent.begin();
+        long parseStart = System.nanoTime();
+        OneCallData data;
+        try {
+            data = OneCallParser.parse(payload, DISPLAYED_SECTIONS);
+        } catch (IllegalArgumentException e) {
+            metrics.countError("parse");
+            e.printStackTrace();
+            return false;
+        }
+        metrics.recordLatency(WeatherMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            parseEvent.payloadSize = payload.length();
+            parseEvent.sections = DISPLAYED_SECTIONS.toString();
+            parseEvent.commit();
+        }
+
+        long publishedAt = System.nanoTime();
+        refresh.publish(() -> {
+            WeatherEvents.FxApply applyEvent = new WeatherEvents.FxApply();
+            applyEvent.begin();
+            long applyStart = System.nanoTime();
+            viewModel.update(data, fetchedAt, fromSnapshot);
+            if (!firstDataShown) {
+                firstDataShown = true;
+                recordStartup();
+            }
+            if (!fromSnapshot && historyStage != null && historyStage.isShowing()) {
+                loadHistory();
+            }
+            long applyEnd = System.nanoTime();
+            metrics.recordLatency(WeatherMetrics.Stage.FX_WAIT, applyStart - publishedAt);
+            metrics.recordLatency(WeatherMetrics.Stage.FX_APPLY, applyEnd - applyStart);
+            applyEvent.end();
+            if (applyEvent.shouldCommit()) {
+                applyEvent.queueWait = applyStart - publishedAt;
+                applyEvent.fromSnapshot = fromSnapshot;
+                applyEvent.commit();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Shows the newest alert change of any fetched location, e.g. a new storm warning for another preset city.
+     * Called on the FX thread once changes are waiting; only changes since the last call are read.
+     */
+    private void showAlertChanges() {
+        if (alertNotificationLabel == null) {
+            return; // The prefetch in init() can report alerts before start() built the label; start() calls again
+        }
+        AlertStore.Change latest = null;
+        for (AlertStore.Change change : alertChanges.drain()) {
+            latest = change;
+        }
+        if (latest == null) {
+            return;
+        }
+        OneCallData.Alert alert = latest.alert().alert();
+        String text = switch (latest.kind()) {
+            case NEW -> "Neue Wetterwarnung: ";
+            case UPDATED -> "Geänderte Wetterwarnung: ";
+            case CLEARED -> "Aufgehobene Wetterwarnung: ";
         };
+        alertNotificationLabel.setText(text + alert.event() + " (" + alert.senderName() + ")");
+    }
 
-        new Thread(weatherTask).start();
+    /**
+     * Records the time from the start of the JVM until the first weather data was shown.
+     */
+    private void recordStartup() {
+        ProcessHandle.current().info().startInstant().ifPresent(start -> metrics.recordLatency(
+                WeatherMetrics.Stage.STARTUP, Duration.between(start, Instant.now()).toNanos()));
     }
 
     /**
      * Displays a window with a line chart representing temperature data.
-     * This method creates a new stage (window) and displays the line chart generated
-     * by the {@code createTemperatureGraph} method within it.
+     * The window and the line chart generated by the {@code createTemperatureGraph} method are created
+     * on the first click and reused afterwards; the chart is bound to the view model and updates in place.
      * The window size is set to 600x400 pixels by default.
-     *
-     * It retrieves the temperature data from the instance variable {@code weatherDataJson},
-     * which is expected to be a JSON string containing temperature data.
      */
 
     private void showGraphWindow() {
-        Stage graphStage = new Stage();
-        graphStage.setTitle("Temperatur Graph");
+        if (graphStage == null) {
+            graphStage = new Stage();
+            graphStage.setTitle("Temperatur Graph");
 
-        LineChart<String, Number> temperatureGraph = createTemperatureGraph(weatherDataJson);
+            LineChart<String, Number> temperatureGraph = createTemperatureGraph();
 
-        Scene graphScene = new Scene(temperatureGraph, 600, 400);
+            Scene graphScene = new Scene(temperatureGraph, 600, 400);
 
-        graphStage.setScene(graphScene);
+            graphStage.setScene(graphScene);
+        }
         graphStage.show();
+        graphStage.toFront();
     }
 
+    /**
+     * Displays a window with the stored history of the displayed location, e.g. weeks of minutely precipitation.
+     * The chart draws on a canvas and downsamples to the visible pixels, so it handles tens of thousands of points;
+     * the mouse wheel zooms, dragging pans and a double click shows the whole history.
+     * The window is created on the first click and reused afterwards.
+     */
+
+    private void showHistoryWindow() {
+        if (historyStage == null) {
+            historyChart = new TimeSeriesChart();
+
+            historyMetricSelection = new ComboBox<>();
+            historyMetricSelection.getItems().addAll(HISTORY_METRICS.keySet());
+            historyMetricSelection.setValue(HISTORY_METRICS.keySet().iterator().next());
+            historyMetricSelection.setOnAction(event -> loadHistory());
+
+            ComboBox<String> downsamplingSelection = new ComboBox<>();
+            for (Downsampler.Mode mode : Downsampler.Mode.values()) {
+                downsamplingSelection.getItems().add(mode.label());
+            }
+            downsamplingSelection.setValue(Downsampler.Mode.MIN_MAX.label());
+            downsamplingSelection.setOnAction(event -> historyChart.setDownsampling(
+                    downsamplingSelection.getValue().equals(Downsampler.Mode.LTTB.label())
+                            ? Downsampler.Mode.LTTB : Downsampler.Mode.MIN_MAX));
+
+            HBox controls = new HBox(10, historyMetricSelection, downsamplingSelection);
+            controls.setPadding(new Insets(10));
+            BorderPane root = new BorderPane(historyChart);
+            root.setTop(controls);
+
+            historyStage = new Stage();
+            historyStage.setTitle("Verlauf");
+            historyStage.setScene(new Scene(root, 800, 450));
+        }
+        loadHistory();
+        historyStage.show();
+        historyStage.toFront();
+    }
 
     /**
-     * Creates a line chart for temperature data based on the provided JSON data.
-     * This method parses the given JSON string to extract temperature data and uses it to
-     * create a line chart. The chart displays high and low temperatures over time.
+     * Loads the history of the selected metric for the displayed location in the background
+     * and shows it in the chart. Temperatures are converted to °C and wind speeds to km/h.
+     */
+    private void loadHistory() {
+        Location location = displayedLocation;
+        if (location == null) {
+            return;
+        }
+        String selected = historyMetricSelection.getValue();
+        TimeSeriesStore.Metric metric = HISTORY_METRICS.get(selected);
+        historyStage.setTitle("Verlauf " + location.name() + ": " + selected);
+        CompletableFuture.supplyAsync(() -> {
+            TimeSeriesStore.TimeSeries series =
+                    history.query(location.latitude(), location.longitude(), metric, Long.MIN_VALUE, Long.MAX_VALUE);
+            float[] values = series.values();
+            for (int i = 0; i < values.length; i++) {
+                if (metric == TimeSeriesStore.Metric.TEMP || metric == TimeSeriesStore.Metric.FEELS_LIKE) {
+                    values[i] = (float) WeatherFormat.kelvinToCelsius(values[i]);
+                } else if (metric == TimeSeriesStore.Metric.WIND_SPEED) {
+                    values[i] = (float) WeatherFormat.mpsToKmh(values[i]);
+                }
+            }
+            return series;
+        }).thenAccept(series -> Platform.runLater(() -> {
+            // Skip results that were overtaken by another selection
+            if (location.equals(displayedLocation) && selected.equals(historyMetricSelection.getValue())) {
+                historyChart.setSeries(series, HISTORY_UNITS.get(metric));
+            }
+        }));
+    }
+
+    /**
+     * Displays the region view with a heatmap and tiles of all cached locations in Austria.
+     * The view is created on the first click and reused afterwards.
+     */
+
+    private void showRegionView() {
+        if (regionView == null) {
+            regionView = new RegionView(weatherAPI);
+        }
+        regionView.show();
+    }
+
+
+    /**
+     * Creates a line chart for temperature data bound to the daily forecast of the view model.
+     * The chart displays high and low temperatures over time and follows every later refresh
+     * without being rebuilt.
      *
-     * @param jsonData The JSON string containing the temperature data. This should be
-     *                 a properly formatted JSON, containing keys like 'daily', 'dt', and 'temp'.
      * @return A {@code LineChart<String, Number>} object representing the temperature graph.
-     * @throws org.json.JSONException if the provided JSON string is not properly formatted or
-     *         if expected data is missing in the JSON object.
      */
 
-    private LineChart<String, Number> createTemperatureGraph(String jsonData) {
+    private LineChart<String, Number> createTemperatureGraph() {
 
         // Create axis for the diagram
         CategoryAxis xAxis = new CategoryAxis();
@@ -338,113 +651,27 @@ public class WeatherApp extends Application {
         LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
         lineChart.setTitle("Temperaturverlauf");
 
-        // Create rows for high and low temperatures
-        XYChart.Series<String, Number> highSeries = new XYChart.Series<>();
-        highSeries.setName("Höchsttemperatur");
-        XYChart.Series<String, Number> lowSeries = new XYChart.Series<>();
-        lowSeries.setName("Tiefsttemperatur");
-
-        // Assigning the json data
-        JSONObject json = new JSONObject(jsonData);
-        JSONArray dailyArray = json.getJSONArray("daily");
-
-        // assigning the data point to the diagram
-        for (int i = 0; i < dailyArray.length(); i++) {
-            JSONObject dayData = dailyArray.getJSONObject(i);
-
-            // change date format
-            long timeEpoch = dayData.getLong("dt");
-            String dateString = Instant.ofEpochSecond(timeEpoch)
-                    .atZone(ZoneId.systemDefault())
-                    .toLocalDate()
-                    .format(DateTimeFormatter.ofPattern("dd.MM"));
-
-            double maxTemp = kelvinToCelsius(dayData.getJSONObject("temp").getDouble("max"));
-            double minTemp = kelvinToCelsius(dayData.getJSONObject("temp").getDouble("min"));
-
-            // datt data points
-            highSeries.getData().add(new XYChart.Data<>(dateString, maxTemp));
-            lowSeries.getData().add(new XYChart.Data<>(dateString, minTemp));
-        }
+        // Create rows for high and low temperatures, backed by the view model's data points
+        XYChart.Series<String, Number> highSeries = new XYChart.Series<>("Höchsttemperatur", viewModel.getDailyHigh());
+        XYChart.Series<String, Number> lowSeries = new XYChart.Series<>("Tiefsttemperatur", viewModel.getDailyLow());
 
         lineChart.getData().addAll(highSeries, lowSeries);
 
         return lineChart;
     }
 
-
-
-
-
     /**
      * Sets the text of all weather-related labels in the UI to indicate that data is unavailable.
      * This method is typically called when weather data cannot be fetched or is otherwise unavailable,
      * ensuring that the user interface accurately reflects the lack of data.
      *
      * It updates labels related to temperature, feels-like temperature, humidity, pressure, wind speed,
-     * visibility, sunrise, sunset, and the date to show a message indicating data unavailability.
+     * visibility, sunrise, sunset, and the date to show a message indicating data unavailability,
+     * and marks the last update as failed.
      */
 
     private void setLabelsToUnavailable() {
-        temperatureLabel.setText("Temperatur: Nicht verfügbar");
-        feelsLikeLabel.setText("Fühlt sich an wie: Nicht verfügbar");
-        humidityLabel.setText("Luftfeuchtigkeit: Nicht verfügbar");
-        pressureLabel.setText("Luftdruck: Nicht verfügbar");
-        windSpeedLabel.setText("Windgeschwindigkeit: Nicht verfügbar");
-        visibilityLabel.setText("Sicht: Nicht verfügbar");
-        sunriseLabel.setText("Sonnenaufgang: Nicht verfügbar");
-        sunsetLabel.setText("Sonnenuntergang: Nicht verfügbar");
-        dateLabel.setText("Datum: Nicht verfügbar");
-    }
-
-    /**
-     * Converts temperature from Kelvin to Celsius.
-     *
-     * @param kelvin The temperature in Kelvin.
-     * @return The converted temperature in Celsius.
-     */
-
-    private double kelvinToCelsius(double kelvin) {
-        return kelvin - 273.15;
-    }
-
-    /**
-     * Converts speed from meters per second to kilometers per hour.
-     *
-     * @param mps The speed in meters per second.
-     * @return The speed in kilometers per hour.
-     */
-
-    private double mpsToKmh(double mps) {
-        return mps * 3.6;
-    }
-
-    /**
-     * Formats a Unix timestamp into a time string.
-     *
-     * @param unixTime The Unix timestamp.
-     * @return The formatted time string.
-     */
-
-    private String formatUnixTime(long unixTime) {
-        return Instant.ofEpochSecond(unixTime)
-                .atZone(ZoneId.systemDefault())
-                .toLocalDateTime()
-                .format(DateTimeFormatter.ofPattern("HH:mm:ss"));
-    }
-
-    /**
-     * Formats a Unix timestamp into a date string.
-     *
-     * @param unixTime The Unix timestamp.
-     * @return The formatted date string.
-     */
-
-    private String formatDate(long unixTime) {
-        return Instant.ofEpochSecond(unixTime)
-                .atZone(ZoneId.systemDefault())
-                .toLocalDate()
-                .format(DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+        viewModel.setUnavailable("Letzte Aktualisierung: Fehlgeschlagen");
     }
 
     /**
@@ -0,0 +1,375 @@
+package WeatherAPP;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The WeatherCache class is a bounded in-memory cache for One Call responses.
+ * Entries are keyed by latitude and longitude rounded to a configurable grid, so nearby lookups share one entry.
+ * Every section of an entry expires on its own (e.g. {@code current} after minutes, {@code daily} after hours)
+ * and the least recently used entry is evicted once the cache is full.
+ * The cached locations are also kept in a {@link SpatialIndex}, so a lookup can be answered by the nearest
+ * fresh entry within a radius and region views can list the entries within a bounding box.
+ */
+
+public class WeatherCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    public static final double DEFAULT_GRID_DEGREES = 0.01; // roughly 1 km
+
+    private final int maxEntries;
+    private final double gridDegrees;
+    private final Map<WeatherSection, Long> ttlMillis = new EnumMap<>(WeatherSection.class);
+    private final LinkedHashMap<GridKey, Entry> entries;
+    private final SpatialIndex<GridKey> index = new SpatialIndex<>();
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache with the default size, grid and section TTLs.
+     */
+    public WeatherCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_GRID_DEGREES, Map.of());
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries  The maximum number of locations kept before the least recently used one is evicted.
+     * @param gridDegrees The grid size in degrees that coordinates are rounded to when building the cache key.
+     * @param ttls        TTL overrides per section; sections not contained use {@link WeatherSection#defaultTtl()}.
+     */
+    public WeatherCache(int maxEntries, double gridDegrees, Map<WeatherSection, Duration> ttls) {
+        if (maxEntries <= 0 || gridDegrees <= 0) {
+            throw new IllegalArgumentException("maxEntries and gridDegrees must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.gridDegrees = gridDegrees;
+        for (WeatherSection section : WeatherSection.values()) {
+            ttlMillis.put(section, ttls.getOrDefault(section, section.defaultTtl()).toMillis());
+        }
+        // access-ordered map, so iteration order is least recently used first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GridKey, Entry> eldest) {
+                if (size() > WeatherCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached payload for a location if all required sections are still fresh.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param required  The sections the caller needs.
+     * @return The cached JSON payload, or {@code null} on a miss.
+     */
+    public synchronized String get(double latitude, double longitude, Set<WeatherSection> required) {
+        return get(latitude, longitude, required, 0);
+    }
+
+    /**
+     * Returns the cached payload for a location if all required sections are still fresh, or else the payload of
+     * the nearest cached location within a radius whose required sections are fresh.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param required  The sections the caller needs.
+     * @param radiusKm  The radius in kilometers within which a nearby entry is good enough; 0 for exact lookups.
+     * @return The cached JSON payload, or {@code null} on a miss.
+     */
+    public synchronized String get(double latitude, double longitude, Set<WeatherSection> required, double radiusKm) {
+        Entry entry = entries.get(keyFor(latitude, longitude));
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.isFresh(required, now)) {
+            hits.incrementAndGet();
+            return entry.payload;
+        }
+        if (radiusKm > 0) {
+            CachedLocation nearest = findNearest(latitude, longitude, required, radiusKm, now);
+            if (nearest != null) {
+                hits.incrementAndGet();
+                return nearest.payload();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Returns the nearest cached location within a radius whose required sections are fresh.
+     * Not counted as a hit or miss.
+     *
+     * @param latitude  The latitude of the search point.
+     * @param longitude The longitude of the search point.
+     * @param required  The sections that have to be fresh.
+     * @param radiusKm  The search radius in kilometers.
+     * @return The nearest fresh location, or {@code null} if there is none.
+     */
+    public synchronized CachedLocation getNearest(double latitude, double longitude, Set<WeatherSection> required,
+                                                  double radiusKm) {
+        return findNearest(latitude, longitude, required, radiusKm, System.currentTimeMillis());
+    }
+
+    private CachedLocation findNearest(double latitude, double longitude, Set<WeatherSection> required,
+                                       double radiusKm, long now) {
+        // Probing marks the candidates as recently used, which only keeps a used neighbourhood cached longer
+        Entry[] found = new Entry[1];
+        SpatialIndex.Match<GridKey> nearest = index.nearest(latitude, longitude, radiusKm, key -> {
+            found[0] = entries.get(key);
+            return found[0] != null && found[0].isFresh(required, now);
+        });
+        if (nearest == null) {
+            return null;
+        }
+        GridKey key = nearest.value();
+        return new CachedLocation(toDegrees(key.latitudeCell()), toDegrees(key.longitudeCell()), found[0].payload);
+    }
+
+    /**
+     * A cached location found by a region query.
+     *
+     * @param latitude  The latitude of the grid cell.
+     * @param longitude The longitude of the grid cell.
+     * @param payload   The cached JSON payload, regardless of its age.
+     */
+    public record CachedLocation(double latitude, double longitude, String payload) {
+    }
+
+    /**
+     * Returns all cached locations within a bounding box, e.g. for a region view. Not counted as hits or misses.
+     *
+     * @param minLatitude  The southern edge.
+     * @param minLongitude The western edge.
+     * @param maxLatitude  The northern edge.
+     * @param maxLongitude The eastern edge.
+     * @return The cached locations in no particular order.
+     */
+    public synchronized List<CachedLocation> getWithin(double minLatitude, double minLongitude,
+                                                       double maxLatitude, double maxLongitude) {
+        List<CachedLocation> locations = new ArrayList<>();
+        for (GridKey key : index.withinBox(minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                locations.add(new CachedLocation(toDegrees(key.latitudeCell()), toDegrees(key.longitudeCell()),
+                        entry.payload));
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Returns the cached payload for a location regardless of its age. Used as a fallback when
+     * no fresh data can be fetched; not counted as a hit or miss.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return The cached JSON payload, or {@code null} if the location is not cached.
+     */
+    public synchronized String getStale(double latitude, double longitude) {
+        Entry entry = entries.get(keyFor(latitude, longitude));
+        return entry == null ? null : entry.payload;
+    }
+
+    /**
+     * Stores a freshly fetched full payload for a location; all sections are marked as fetched now.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param payload   The JSON payload.
+     */
+    public synchronized void put(double latitude, double longitude, String payload) {
+        Entry entry = new Entry(payload);
+        long now = System.currentTimeMillis();
+        for (WeatherSection section : WeatherSection.values()) {
+            entry.fetchedAt[section.ordinal()] = now;
+        }
+        store(keyFor(latitude, longitude), entry);
+    }
+
+    /**
+     * Stores a partial payload fetched with only the given sections. If the location is already cached,
+     * the sections are spliced into the cached payload and all other sections keep their fetch time.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param partial   The partial JSON payload.
+     * @param sections  The sections contained in the partial payload.
+     * @return The payload now cached for the location.
+     */
+    public synchronized String merge(double latitude, double longitude, String partial, Set<WeatherSection> sections) {
+        GridKey key = keyFor(latitude, longitude);
+        Entry old = entries.get(key);
+        Entry entry = new Entry(old == null ? partial : OneCallParser.merge(old.payload, partial, sections));
+        if (old != null) {
+            System.arraycopy(old.fetchedAt, 0, entry.fetchedAt, 0, entry.fetchedAt.length);
+        }
+        long now = System.currentTimeMillis();
+        for (WeatherSection section : sections) {
+            entry.fetchedAt[section.ordinal()] = now;
+        }
+        store(key, entry);
+        return entry.payload;
+    }
+
+    /**
+     * Marks sections of a cached payload as fetched now, e.g. after the API answered {@code 304 Not Modified}.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param sections  The sections that were confirmed to be unchanged.
+     * @return The cached payload, or {@code null} if the location is not cached.
+     */
+    public synchronized String touch(double latitude, double longitude, Set<WeatherSection> sections) {
+        Entry entry = entries.get(keyFor(latitude, longitude));
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        for (WeatherSection section : sections) {
+            entry.fetchedAt[section.ordinal()] = now;
+        }
+        return entry.payload;
+    }
+
+    /**
+     * Returns which of the required sections of a cached location have expired.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param required  The sections the caller needs.
+     * @return The expired sections (possibly empty), or {@code null} if the location is not cached at all.
+     */
+    public synchronized Set<WeatherSection> getExpiredSections(double latitude, double longitude,
+                                                               Set<WeatherSection> required) {
+        Entry entry = entries.get(keyFor(latitude, longitude));
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Set<WeatherSection> expired = EnumSet.noneOf(WeatherSection.class);
+        for (WeatherSection section : required) {
+            if (now - entry.fetchedAt[section.ordinal()] > ttlMillis.get(section)) {
+                expired.add(section);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Returns when a section of a location was last fetched.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param section   The section.
+     * @return The fetch time in epoch milliseconds, or 0 if the section was never fetched.
+     */
+    public synchronized long getFetchedAt(double latitude, double longitude, WeatherSection section) {
+        Entry entry = entries.get(keyFor(latitude, longitude));
+        return entry == null ? 0 : entry.fetchedAt[section.ordinal()];
+    }
+
+    /**
+     * Converts a grid cell back to degrees; dividing by the cells per degree avoids float noise like 13.030000000000001.
+     */
+    private double toDegrees(long cell) {
+        return cell / (1 / gridDegrees);
+    }
+
+    /**
+     * Removes all entries. Statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        index.clear();
+    }
+
+    private void store(GridKey key, Entry entry) {
+        if (entries.put(key, entry) == null) {
+            index.put(toDegrees(key.latitudeCell()), toDegrees(key.longitudeCell()), key);
+        }
+    }
+
+    private void unindex(GridKey key) {
+        index.remove(toDegrees(key.latitudeCell()), toDegrees(key.longitudeCell()), key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return The share of lookups that were hits, between 0 and 1.
+     */
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Rounds coordinates to the cache grid.
+     *
+     * @param latitude  The latitude.
+     * @param longitude The longitude.
+     * @return The grid key for the coordinates.
+     */
+    GridKey keyFor(double latitude, double longitude) {
+        return new GridKey(Math.round(latitude / gridDegrees), Math.round(longitude / gridDegrees));
+    }
+
+    /**
+     * A grid cell the coordinates were rounded to.
+     */
+    record GridKey(long latitudeCell, long longitudeCell) {
+    }
+
+    /**
+     * A cached payload together with the time each of its sections was fetched.
+     */
+    private final class Entry {
+        private final String payload;
+        private final long[] fetchedAt = new long[WeatherSection.values().length];
+
+        private Entry(String payload) {
+            this.payload = payload;
+        }
+
+        private boolean isFresh(Set<WeatherSection> required, long now) {
+            for (WeatherSection section : required) {
+                if (now - fetchedAt[section.ordinal()] > ttlMillis.get(section)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package WeatherAPP;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * The WeatherCli class runs fetch and decode jobs without the JavaFX UI, e.g. on servers without a display.
+ *
+ * <pre>
+ * export &lt;coordinates file&gt; [options]   fetches every coordinate of the file through WeatherAPI
+ * replay &lt;file or directory&gt;... [options] decodes saved One Call payloads (e.g. example.json)
+ *
+ * options:
+ *   --format csv|ndjson|geojson  output format (default: csv)
+ *   --out &lt;file&gt;                 output file (default: standard output)
+ *   --sections current,hourly,.. sections to write (default: current,hourly,daily)
+ *   --concurrency &lt;n&gt;            export: maximum requests in flight (default: 16)
+ *   --timeout &lt;seconds&gt;          export: deadline per request (default: 15, plus the time the quota governor
+ *                                needs to grant one call per concurrent request)
+ *   --rate &lt;calls per second&gt;   export: sustained call rate granted by the quota governor (default: 0.5)
+ *   --quota &lt;calls per day&gt;      export: daily call budget shared with the application (default: 1000)
+ *   --endpoint &lt;url&gt;            export: One Call endpoint to use instead of OpenWeather, e.g. a
+ *                                the stub server of the benchmarks module; its calls are not counted against the quota
+ *   --radius &lt;km&gt;               export: answer a location from a fresh result within this distance (default: 0)
+ * </pre>
+ *
+ * The coordinates file has one location per line as {@code latitude,longitude[,name]};
+ * empty lines and lines starting with {@code #} are ignored. Input is read and output written as a stream,
+ * so memory use does not grow with the number of locations. Export prints a summary of the fetch and parse
+ * timings to standard error when it is done. A location whose deadline passes while its call is still waiting
+ * for the quota governor does not use a call.
+ */
+
+public class WeatherCli {
+
+    private static final Set<WeatherSection> DEFAULT_SECTIONS =
+            EnumSet.of(WeatherSection.CURRENT, WeatherSection.HOURLY, WeatherSection.DAILY);
+
+    private WeatherExporter.Format format = WeatherExporter.Format.CSV;
+    private Path outFile;
+    private Set<WeatherSection> sections = DEFAULT_SECTIONS;
+    private int concurrency = BatchFetcher.DEFAULT_MAX_CONCURRENCY;
+    private Duration timeout; // null: sized to the quota governor
+    private double rate = QuotaGovernor.DEFAULT_TOKENS_PER_SECOND;
+    private int quota = QuotaGovernor.DEFAULT_DAILY_QUOTA;
+    private String endpoint;
+    private double radiusKm;
+    private final List<String> operands = new ArrayList<>();
+
+    private WeatherCli() {
+    }
+
+    /**
+     * @param command The first command line argument.
+     * @return Whether the argument selects a command line mode instead of the UI.
+     */
+    public static boolean isCommand(String command) {
+        return "export".equals(command) || "replay".equals(command);
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args The command and its arguments.
+     * @return The exit code: 0 on success, 1 if some locations failed, 2 on invalid usage or I/O errors.
+     */
+    public static int run(String[] args) {
+        if (args.length == 0 || !isCommand(args[0])) {
+            printUsage();
+            return 2;
+        }
+        WeatherCli cli = new WeatherCli();
+        try {
+            cli.parseOptions(args);
+            return "export".equals(args[0]) ? cli.export() : cli.replay();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            return 2;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            return 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 2;
+        }
+    }
+
+    private void parseOptions(String[] args) {
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                operands.add(arg);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--format" -> format = WeatherExporter.Format.parse(value);
+                case "--out" -> outFile = Path.of(value);
+                case "--sections" -> sections = parseSections(value);
+                case "--concurrency" -> concurrency = Integer.parseInt(value);
+                case "--timeout" -> timeout = Duration.ofSeconds(Long.parseLong(value));
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--quota" -> quota = Integer.parseInt(value);
+                case "--endpoint" -> endpoint = value;
+                case "--radius" -> radiusKm = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (operands.isEmpty()) {
+            throw new IllegalArgumentException("Missing input file");
+        }
+    }
+
+    private static Set<WeatherSection> parseSections(String value) {
+        Set<WeatherSection> parsed = EnumSet.noneOf(WeatherSection.class);
+        for (String name : value.split(",")) {
+            parsed.add(WeatherSection.valueOf(name.trim().toUpperCase(java.util.Locale.ROOT)));
+        }
+        return parsed;
+    }
+
+    /**
+     * Fetches every location of the coordinates file and writes the decoded results in completion order.
+     */
+    private int export() throws IOException, InterruptedException {
+        QuotaGovernor governor = endpoint == null
+                ? new QuotaGovernor(QuotaGovernor.DEFAULT_STATE_FILE, quota, QuotaGovernor.DEFAULT_RESERVE,
+                        QuotaGovernor.DEFAULT_BURST, rate)
+                : null;
+        WeatherAPI weatherAPI = endpoint == null
+                ? new WeatherAPI(new WeatherCache(), null, governor)
+                : new WeatherAPI(new OpenWeatherProvider(endpoint, "local"), WeatherAPI.DEFAULT_CONNECT_TIMEOUT,
+                        WeatherAPI.DEFAULT_REQUEST_TIMEOUT, new WeatherCache(), null, null);
+        MetricsRegistry metrics = new MetricsRegistry();
+        weatherAPI.setMetrics(metrics);
+        weatherAPI.setNearbyRadiusKm(radiusKm);
+        AtomicLong failed = new AtomicLong();
+        // The callback runs on the fetching threads, where an exception would not reach this method
+        AtomicReference<IOException> writeError = new AtomicReference<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(operands.get(0)));
+             WeatherExporter exporter = new WeatherExporter(openOutput(), format, sections);
+             BatchFetcher fetcher = new BatchFetcher(weatherAPI, concurrency, deadline(governor))) {
+            fetcher.fetchEach(new CoordinateReader(reader), result -> {
+                if (writeError.get() != null) {
+                    return;
+                }
+                if (!result.isSuccess()) {
+                    failed.incrementAndGet();
+                    System.err.println("Failed: " + result.location() + (result.error() == null ? "" : " (" + result.error() + ")"));
+                    return;
+                }
+                try {
+                    long parseStart = System.nanoTime();
+                    OneCallData data = OneCallParser.parse(result.payload(), sections);
+                    metrics.recordLatency(WeatherMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+                    exporter.write(result.location().name(), data);
+                } catch (IOException e) {
+                    writeError.compareAndSet(null, e);
+                } catch (IllegalArgumentException e) {
+                    metrics.countError("parse");
+                    failed.incrementAndGet();
+                    System.err.println("Invalid response for " + result.location() + ": " + e.getMessage());
+                }
+            });
+            if (writeError.get() != null) {
+                throw writeError.get();
+            }
+        } finally {
+            if (governor != null) {
+                governor.flush();
+            }
+        }
+        System.err.print(metrics.report());
+        return failed.get() == 0 ? 0 : 1;
+    }
+
+    /**
+     * @param governor The quota governor of the export, or {@code null}.
+     * @return The deadline per request: the given timeout, or by default the default deadline plus the time
+     *         the governor needs to grant a call to every request that may be waiting in front of this one.
+     */
+    private Duration deadline(QuotaGovernor governor) {
+        if (timeout != null) {
+            return timeout;
+        }
+        if (governor == null) {
+            return BatchFetcher.DEFAULT_DEADLINE;
+        }
+        return BatchFetcher.DEFAULT_DEADLINE.plusMillis((long) Math.ceil(concurrency / rate * 1000));
+    }
+
+    /**
+     * Decodes saved payload files (directories are searched for {@code .json} files) and writes the results.
+     */
+    private int replay() throws IOException {
+        int failed = 0;
+        try (WeatherExporter exporter = new WeatherExporter(openOutput(), format, sections)) {
+            for (String operand : operands) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(Path.of(operand))) {
+                    files = walk.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(".json"))
+                            .sorted()
+                            .toList();
+                }
+                for (Path file : files) {
+                    String name = file.getFileName().toString().replaceFirst("\\.json$", "");
+                    try {
+                        exporter.write(name, OneCallParser.parse(Files.readString(file), sections));
+                    } catch (IllegalArgumentException e) {
+                        failed++;
+                        System.err.println("Invalid payload " + file + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    private Writer openOutput() throws IOException {
+        if (outFile == null) {
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        }
+        return Files.newBufferedWriter(outFile);
+    }
+
+    private static void printUsage() {
+        System.err.println("""
+                Usage:
+                  export <coordinates file> [options]    fetch every 'latitude,longitude[,name]' line
+                  replay <file or directory>... [options] decode saved One Call payloads
+                Options:
+                  --format csv|ndjson|geojson   output format (default: csv)
+                  --out <file>                  output file (default: standard output)
+                  --sections current,hourly,..  sections to write (default: current,hourly,daily)
+                  --concurrency <n>             export: maximum requests in flight (default: 16)
+                  --timeout <seconds>           export: deadline per request (default: 15 + concurrency / rate)
+                  --rate <calls per second>     export: sustained call rate of the quota governor (default: 0.5)
+                  --quota <calls per day>       export: daily call budget shared with the application (default: 1000)
+                  --endpoint <url>              export: One Call endpoint instead of OpenWeather (no quota)
+                  --radius <km>                 export: reuse a fresh result within this distance (default: 0)""");
+    }
+
+    /**
+     * Reads locations lazily from a coordinates file.
+     */
+    private static final class CoordinateReader implements Iterator<Location> {
+        private final BufferedReader reader;
+        private Location next;
+        private int lineNumber;
+
+        private CoordinateReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    try {
+                        String[] fields = line.split(",", 3);
+                        double latitude = Double.parseDouble(fields[0].trim());
+                        double longitude = Double.parseDouble(fields[1].trim());
+                        String name = fields.length > 2 ? fields[2].trim() : fields[0].trim() + "," + fields[1].trim();
+                        next = new Location(name, latitude, longitude);
+                        return true;
+                    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                        System.err.println("Skipping invalid line " + lineNumber + ": " + line);
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Location next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Location location = next;
+            next = null;
+            return location;
+        }
+    }
+}
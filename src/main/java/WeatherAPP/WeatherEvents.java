@@ -0,0 +1,160 @@
+package WeatherAPP;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR events of the refresh pipeline, one per stage, so a flight recording shows API calls, decoding and
+ * FX thread work next to GC pauses and thread activity. The events are disabled unless a recording enables them,
+ * e.g. {@code -XX:StartFlightRecording:settings=profile}, and then cost only a flag check.
+ */
+
+public final class WeatherEvents {
+
+    private WeatherEvents() {
+    }
+
+    /**
+     * An HTTP request to the weather provider; the event duration is the whole request.
+     * A call that is retried or hedged records one event per request.
+     */
+    @Name("WeatherAPP.Fetch")
+    @Label("Weather Fetch")
+    @Category({"Weather", "Network"})
+    @StackTrace(false)
+    public static class Fetch extends Event {
+        @Label("Provider")
+        public String provider;
+
+        @Label("Latitude")
+        public double latitude;
+
+        @Label("Longitude")
+        public double longitude;
+
+        @Label("Sections")
+        public String sections;
+
+        @Label("Attempt")
+        @Description("1 for the first request of a call, higher for retries")
+        public int attempt;
+
+        @Label("Hedge")
+        @Description("Whether this is the second request sent because the first one was slow")
+        public boolean hedge;
+
+        @Label("Status")
+        @Description("HTTP status, or -1 if the call failed without a response")
+        public int status = -1;
+
+        @Label("Time To First Byte")
+        @Timespan(Timespan.NANOSECONDS)
+        public long ttfb;
+
+        @Label("Body Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long body;
+
+        @Label("Response Size")
+        @DataAmount
+        public long responseSize;
+
+        @Label("Error")
+        public String error;
+
+        /**
+         * Creates an event for a fetch; it is only recorded when committed.
+         */
+        public Fetch() {
+        }
+    }
+
+    /**
+     * A call that was answered without contacting the provider, because its circuit was open or the
+     * daily quota was used up.
+     */
+    @Name("WeatherAPP.Rejected")
+    @Label("Weather Call Rejected")
+    @Category({"Weather", "Network"})
+    @StackTrace(false)
+    public static class Rejected extends Event {
+        @Label("Provider")
+        public String provider;
+
+        @Label("Latitude")
+        public double latitude;
+
+        @Label("Longitude")
+        public double longitude;
+
+        @Label("Reason")
+        @Description("\"circuit open\" or \"quota exhausted\"")
+        public String reason;
+
+        @Label("Fallback")
+        @Description("Whether cached data was returned instead")
+        public boolean fallback;
+
+        @Label("Fallback Age")
+        @Description("How long ago the returned data was fetched; 0 if unknown or nothing was returned")
+        @Timespan(Timespan.MILLISECONDS)
+        public long fallbackAge;
+
+        /**
+         * Creates an event for a rejected call; it is only recorded when committed.
+         */
+        public Rejected() {
+        }
+    }
+
+    /**
+     * Decoding a payload.
+     */
+    @Name("WeatherAPP.Parse")
+    @Label("Weather Parse")
+    @Category("Weather")
+    @StackTrace(false)
+    public static class Parse extends Event {
+        @Label("Payload Size")
+        @DataAmount
+        public long payloadSize;
+
+        @Label("Sections")
+        public String sections;
+
+        /**
+         * Creates an event for a parse; it is only recorded when committed.
+         */
+        public Parse() {
+        }
+    }
+
+    /**
+     * Applying a result on the FX thread; the event duration is the apply itself.
+     */
+    @Name("WeatherAPP.FxApply")
+    @Label("Weather FX Apply")
+    @Category({"Weather", "JavaFX"})
+    @StackTrace(false)
+    public static class FxApply extends Event {
+        @Label("Queue Wait")
+        @Description("Time between handing the result to the FX thread and the FX thread running it")
+        @Timespan(Timespan.NANOSECONDS)
+        public long queueWait;
+
+        @Label("From Snapshot")
+        public boolean fromSnapshot;
+
+        /**
+         * Creates an event for a FX apply; it is only recorded when committed.
+         */
+        public FxApply() {
+        }
+    }
+}
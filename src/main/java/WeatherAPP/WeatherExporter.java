@@ -0,0 +1,341 @@
+package WeatherAPP;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The WeatherExporter class writes decoded responses as CSV, newline-delimited JSON or GeoJSON.
+ * Every location is written as soon as it is handed over and nothing is retained afterwards,
+ * so exports of any size run in constant memory.
+ *
+ * CSV has one row per series entry ({@code section} is {@code current}, {@code minutely}, {@code hourly}
+ * or {@code daily}); NDJSON has one object per location. GeoJSON is a single FeatureCollection with one Point
+ * feature per location, whose properties are the fields of the NDJSON object: the opening of the collection is
+ * written when the exporter is created, every feature as it arrives and the closing brackets on {@link #close()}.
+ * Temperatures are in °C, wind speeds in km/h, precipitation in mm and the probability of precipitation between
+ * 0 and 1. Missing values are left empty (CSV) or written as {@code null} (NDJSON, GeoJSON); a location without
+ * coordinates has a {@code null} geometry.
+ */
+
+public class WeatherExporter implements Closeable {
+
+    private static final String CSV_HEADER =
+            "name,latitude,longitude,section,dt,temp_c,temp_min_c,temp_max_c,feels_like_c,humidity,pressure,wind_kmh,pop,precipitation_mm";
+    private static final String GEOJSON_HEADER = "{\"type\":\"FeatureCollection\",\"features\":[";
+    private static final String GEOJSON_FOOTER = "\n]}\n";
+    // Six decimals are about 0.1 m, more than the API delivers
+    private static final int COORDINATE_DECIMALS = 6;
+    private static final int VALUE_DECIMALS = 2;
+
+    /**
+     * The output format.
+     */
+    public enum Format {
+        CSV, NDJSON, GEOJSON;
+
+        /**
+         * @param name The format name, case-insensitive.
+         * @return The format.
+         * @throws IllegalArgumentException If there is no format with that name.
+         */
+        public static Format parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Writer out;
+    private final Format format;
+    private final Set<WeatherSection> sections;
+    private final StringBuilder line = new StringBuilder(4096);
+    private boolean firstFeature = true;
+
+    /**
+     * Creates an exporter and writes the CSV header or the opening of the GeoJSON FeatureCollection if needed.
+     *
+     * @param out      The writer the records are written to; closed together with the exporter.
+     * @param format   The output format.
+     * @param sections The sections to write; only {@code current}, {@code minutely}, {@code hourly} and {@code daily}
+     *                 are exported.
+     * @throws IOException If the header cannot be written.
+     */
+    public WeatherExporter(Writer out, Format format, Set<WeatherSection> sections) throws IOException {
+        this.out = out;
+        this.format = format;
+        this.sections = sections;
+        if (format == Format.CSV) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        } else if (format == Format.GEOJSON) {
+            out.write(GEOJSON_HEADER);
+        }
+    }
+
+    /**
+     * Writes one location. Safe to call from several threads.
+     *
+     * @param name The name of the location.
+     * @param data The decoded response.
+     * @throws IOException If writing fails.
+     */
+    public synchronized void write(String name, OneCallData data) throws IOException {
+        line.setLength(0);
+        switch (format) {
+            case CSV -> appendCsv(name, data);
+            case NDJSON -> appendJson(name, data);
+            case GEOJSON -> appendFeature(name, data);
+        }
+        out.append(line);
+    }
+
+    private void appendCsv(String name, OneCallData data) {
+        line.append(csvField(name));
+        appendCsvNumber(data.getLatitude(), COORDINATE_DECIMALS);
+        appendCsvNumber(data.getLongitude(), COORDINATE_DECIMALS);
+        String prefix = line.append(',').toString();
+        line.setLength(0);
+        OneCallData.Current current = data.getCurrent();
+        if (current != null && sections.contains(WeatherSection.CURRENT)) {
+            csvRow(prefix, "current", current.dt(), current.temp(), Float.NaN, Float.NaN, current.feelsLike(),
+                    intOrNaN(current.humidity()), intOrNaN(current.pressure()), current.windSpeed(), Float.NaN,
+                    current.rain1h());
+        }
+        OneCallData.Minutely minutely = data.getMinutely();
+        if (minutely != null && sections.contains(WeatherSection.MINUTELY)) {
+            for (int i = 0; i < minutely.size(); i++) {
+                csvRow(prefix, "minutely", minutely.dt()[i], Float.NaN, Float.NaN, Float.NaN, Float.NaN,
+                        Float.NaN, Float.NaN, Float.NaN, Float.NaN, minutely.precipitation()[i]);
+            }
+        }
+        OneCallData.Hourly hourly = data.getHourly();
+        if (hourly != null && sections.contains(WeatherSection.HOURLY)) {
+            for (int i = 0; i < hourly.size(); i++) {
+                csvRow(prefix, "hourly", hourly.dt()[i], hourly.temp()[i], Float.NaN, Float.NaN,
+                        hourly.feelsLike()[i], hourly.humidity()[i], hourly.pressure()[i], hourly.windSpeed()[i],
+                        hourly.pop()[i], hourly.rain()[i]);
+            }
+        }
+        OneCallData.Daily daily = data.getDaily();
+        if (daily != null && sections.contains(WeatherSection.DAILY)) {
+            for (int i = 0; i < daily.size(); i++) {
+                csvRow(prefix, "daily", daily.dt()[i], daily.tempDay()[i], daily.tempMin()[i], daily.tempMax()[i],
+                        Float.NaN, daily.humidity()[i], daily.pressure()[i], daily.windSpeed()[i], daily.pop()[i],
+                        daily.rain()[i]);
+            }
+        }
+    }
+
+    private void csvRow(String prefix, String section, long dt, float temp, float tempMin, float tempMax,
+                        float feelsLike, float humidity, float pressure, float windSpeed, float pop, float precipitation) {
+        line.append(prefix).append(section).append(',').append(dt);
+        appendCsvNumber(celsius(temp));
+        appendCsvNumber(celsius(tempMin));
+        appendCsvNumber(celsius(tempMax));
+        appendCsvNumber(celsius(feelsLike));
+        appendCsvNumber(humidity);
+        appendCsvNumber(pressure);
+        appendCsvNumber(kmh(windSpeed));
+        appendCsvNumber(pop);
+        appendCsvNumber(precipitation);
+        line.append('\n');
+    }
+
+    private void appendCsvNumber(double value) {
+        appendCsvNumber(value, VALUE_DECIMALS);
+    }
+
+    private void appendCsvNumber(double value, int decimals) {
+        line.append(',');
+        if (!Double.isNaN(value)) {
+            appendNumber(value, decimals);
+        }
+    }
+
+    private void appendJson(String name, OneCallData data) {
+        line.append("{\"name\":");
+        jsonString(name);
+        jsonNumber("lat", data.getLatitude(), COORDINATE_DECIMALS);
+        jsonNumber("lon", data.getLongitude(), COORDINATE_DECIMALS);
+        appendJsonFields(data);
+        line.append("}\n");
+    }
+
+    /**
+     * Appends one GeoJSON feature, preceded by a comma unless it is the first one of the collection.
+     */
+    private void appendFeature(String name, OneCallData data) {
+        line.append(firstFeature ? "\n" : ",\n").append("{\"type\":\"Feature\",\"geometry\":");
+        firstFeature = false;
+        if (Double.isNaN(data.getLatitude()) || Double.isNaN(data.getLongitude())) {
+            line.append("null");
+        } else {
+            // GeoJSON positions are longitude first
+            line.append("{\"type\":\"Point\",\"coordinates\":[");
+            appendNumber(data.getLongitude(), COORDINATE_DECIMALS);
+            line.append(',');
+            appendNumber(data.getLatitude(), COORDINATE_DECIMALS);
+            line.append("]}");
+        }
+        line.append(",\"properties\":{\"name\":");
+        jsonString(name);
+        appendJsonFields(data);
+        line.append("}}");
+    }
+
+    /**
+     * Appends the timezone and the exported sections, each preceded by a comma.
+     */
+    private void appendJsonFields(OneCallData data) {
+        line.append(",\"timezone\":");
+        jsonString(data.getTimezone());
+
+        OneCallData.Current current = data.getCurrent();
+        if (current != null && sections.contains(WeatherSection.CURRENT)) {
+            line.append(",\"current\":{\"dt\":").append(current.dt());
+            jsonNumber("temp_c", celsius(current.temp()));
+            jsonNumber("feels_like_c", celsius(current.feelsLike()));
+            jsonNumber("humidity", intOrNaN(current.humidity()));
+            jsonNumber("pressure", intOrNaN(current.pressure()));
+            jsonNumber("wind_kmh", kmh(current.windSpeed()));
+            jsonNumber("precipitation_mm", current.rain1h());
+            line.append(",\"weather_id\":").append(current.weatherId()).append('}');
+        }
+        OneCallData.Minutely minutely = data.getMinutely();
+        if (minutely != null && sections.contains(WeatherSection.MINUTELY)) {
+            line.append(",\"minutely\":[");
+            for (int i = 0; i < minutely.size(); i++) {
+                line.append(i == 0 ? "" : ",").append("{\"dt\":").append(minutely.dt()[i]);
+                jsonNumber("precipitation_mm", minutely.precipitation()[i]);
+                line.append('}');
+            }
+            line.append(']');
+        }
+        OneCallData.Hourly hourly = data.getHourly();
+        if (hourly != null && sections.contains(WeatherSection.HOURLY)) {
+            line.append(",\"hourly\":[");
+            for (int i = 0; i < hourly.size(); i++) {
+                line.append(i == 0 ? "" : ",").append("{\"dt\":").append(hourly.dt()[i]);
+                jsonNumber("temp_c", celsius(hourly.temp()[i]));
+                jsonNumber("feels_like_c", celsius(hourly.feelsLike()[i]));
+                jsonNumber("humidity", hourly.humidity()[i]);
+                jsonNumber("pressure", hourly.pressure()[i]);
+                jsonNumber("wind_kmh", kmh(hourly.windSpeed()[i]));
+                jsonNumber("pop", hourly.pop()[i]);
+                jsonNumber("precipitation_mm", hourly.rain()[i]);
+                line.append('}');
+            }
+            line.append(']');
+        }
+        OneCallData.Daily daily = data.getDaily();
+        if (daily != null && sections.contains(WeatherSection.DAILY)) {
+            line.append(",\"daily\":[");
+            for (int i = 0; i < daily.size(); i++) {
+                line.append(i == 0 ? "" : ",").append("{\"dt\":").append(daily.dt()[i]);
+                jsonNumber("temp_c", celsius(daily.tempDay()[i]));
+                jsonNumber("temp_min_c", celsius(daily.tempMin()[i]));
+                jsonNumber("temp_max_c", celsius(daily.tempMax()[i]));
+                jsonNumber("humidity", daily.humidity()[i]);
+                jsonNumber("pressure", daily.pressure()[i]);
+                jsonNumber("wind_kmh", kmh(daily.windSpeed()[i]));
+                jsonNumber("pop", daily.pop()[i]);
+                jsonNumber("precipitation_mm", daily.rain()[i]);
+                line.append('}');
+            }
+            line.append(']');
+        }
+    }
+
+    private void jsonNumber(String key, double value) {
+        jsonNumber(key, value, VALUE_DECIMALS);
+    }
+
+    private void jsonNumber(String key, double value, int decimals) {
+        line.append(",\"").append(key).append("\":");
+        if (Double.isNaN(value)) {
+            line.append("null");
+        } else {
+            appendNumber(value, decimals);
+        }
+    }
+
+    /**
+     * Appends a number rounded to the given decimals, two for measured values, which is the precision the API
+     * delivers and keeps the output free of float noise. Whole numbers are written without a fraction.
+     */
+    private void appendNumber(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        double rounded = Math.round(value * scale) / scale;
+        if (rounded == (long) rounded) {
+            line.append((long) rounded);
+        } else {
+            line.append(rounded);
+        }
+    }
+
+    private void jsonString(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static double celsius(float kelvin) {
+        return Float.isNaN(kelvin) ? Double.NaN : WeatherFormat.kelvinToCelsius(kelvin);
+    }
+
+    private static double kmh(float mps) {
+        return Float.isNaN(mps) ? Double.NaN : WeatherFormat.mpsToKmh(mps);
+    }
+
+    private static float intOrNaN(int value) {
+        return value < 0 ? Float.NaN : value;
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Closes the GeoJSON FeatureCollection if needed, then the writer.
+     *
+     * @throws IOException If the closing brackets cannot be written or the writer cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (format == Format.GEOJSON) {
+                out.write(GEOJSON_FOOTER);
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
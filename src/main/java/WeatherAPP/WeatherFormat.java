@@ -0,0 +1,81 @@
+package WeatherAPP;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The WeatherFormat class converts the units delivered by the API and formats timestamps for display.
+ * The date-time formatters are immutable and thread-safe, so they are built once and shared.
+ */
+
+public final class WeatherFormat {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+    private static final DateTimeFormatter DAY_MONTH = DateTimeFormatter.ofPattern("dd.MM");
+
+    private WeatherFormat() {
+    }
+
+    /**
+     * Converts temperature from Kelvin to Celsius.
+     *
+     * @param kelvin The temperature in Kelvin.
+     * @return The converted temperature in Celsius.
+     */
+    public static double kelvinToCelsius(double kelvin) {
+        return kelvin - 273.15;
+    }
+
+    /**
+     * Converts speed from meters per second to kilometers per hour.
+     *
+     * @param mps The speed in meters per second.
+     * @return The speed in kilometers per hour.
+     */
+    public static double mpsToKmh(double mps) {
+        return mps * 3.6;
+    }
+
+    /**
+     * Formats a Unix timestamp into a time string.
+     *
+     * @param unixTime The Unix timestamp.
+     * @return The formatted time string, e.g. {@code 07:38:21}.
+     */
+    public static String formatUnixTime(long unixTime) {
+        return TIME.format(Instant.ofEpochSecond(unixTime).atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Formats a Unix timestamp into a date string.
+     *
+     * @param unixTime The Unix timestamp.
+     * @return The formatted date string, e.g. {@code 21.01.2024}.
+     */
+    public static String formatDate(long unixTime) {
+        return DATE.format(Instant.ofEpochSecond(unixTime).atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Formats a Unix timestamp into a day and month string as used on chart axes.
+     *
+     * @param unixTime The Unix timestamp.
+     * @return The formatted string, e.g. {@code 21.01}.
+     */
+    public static String formatDayMonth(long unixTime) {
+        return DAY_MONTH.format(Instant.ofEpochSecond(unixTime).atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Formats epoch milliseconds into a date and time string.
+     *
+     * @param epochMillis The time in epoch milliseconds.
+     * @return The formatted string, e.g. {@code 21.01.2024 17:24:05}.
+     */
+    public static String formatDateTime(long epochMillis) {
+        return DATE_TIME.format(Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,69 @@
+package WeatherAPP;
+
+/**
+ * A WeatherMetrics receives measurements of the fetch, parse and render pipeline.
+ * Implementations decide where they go, e.g. into the in-memory {@link MetricsRegistry} or an external
+ * monitoring system. All methods are called on hot paths from arbitrary threads, so implementations have to be
+ * thread-safe and must not block. Every method does nothing by default.
+ */
+
+public interface WeatherMetrics {
+
+    /**
+     * Does not record anything.
+     */
+    WeatherMetrics NOOP = new WeatherMetrics() {
+    };
+
+    /**
+     * The measured stages of a refresh.
+     */
+    enum Stage {
+        /**
+         * From sending a request until its response headers arrived. Includes the DNS lookup, the connect and
+         * the TLS handshake if the request opened a new connection; the HTTP client does not report them separately.
+         */
+        TTFB,
+        /** From the response headers until the complete body was received. */
+        BODY,
+        /** From starting a call until its result is available, including waiting for the quota governor. */
+        FETCH,
+        /** Decoding a payload. */
+        PARSE,
+        /** From handing a result to the FX thread until the FX thread runs it; grows when the FX thread is saturated. */
+        FX_WAIT,
+        /** Applying a result to the view model on the FX thread. */
+        FX_APPLY,
+        /** Rasterizing a frame of the region view on its worker thread. */
+        RENDER,
+        /** From the start of the JVM until the first weather data was shown; recorded once per run. */
+        STARTUP
+    }
+
+    /**
+     * @param stage The stage.
+     * @param nanos The duration of the stage in nanoseconds.
+     */
+    default void recordLatency(Stage stage, long nanos) {
+    }
+
+    /**
+     * @param chars The length of a response body in characters.
+     */
+    default void recordResponseSize(long chars) {
+    }
+
+    /**
+     * @param hit Whether a lookup was answered by the cache.
+     */
+    default void recordCacheLookup(boolean hit) {
+    }
+
+    /**
+     * Counts an error.
+     *
+     * @param type The type of the error, e.g. {@code "HTTP 429"}, {@code "HttpTimeoutException"} or {@code "parse"}.
+     */
+    default void countError(String type) {
+    }
+}
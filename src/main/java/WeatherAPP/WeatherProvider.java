@@ -0,0 +1,29 @@
+package WeatherAPP;
+
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * A WeatherProvider describes where One Call payloads are requested from.
+ * {@link WeatherAPI} builds its requests through the provider and handles everything else
+ * (caching, coalescing, conditional requests, quota) the same way for every provider,
+ * so the pipeline can be pointed at a local stub server (see the benchmarks module) for load tests without any other change.
+ */
+
+public interface WeatherProvider {
+
+    /**
+     * @return A short name used in log messages, e.g. {@code "OpenWeather"}.
+     */
+    String name();
+
+    /**
+     * Builds the request URI for a location.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @param sections  The sections to fetch; the provider should leave out all others if it can.
+     * @return The request URI. Equal URIs must mean equal requests, as calls are coalesced by URI.
+     */
+    URI requestUri(double latitude, double longitude, Set<WeatherSection> sections);
+}
@@ -0,0 +1,40 @@
+package WeatherAPP;
+
+import java.time.Duration;
+
+/**
+ * The top-level sections of a One Call 3.0 response.
+ * Each section knows its JSON key (which is also the value used in the API's {@code exclude} parameter)
+ * and how long a fetched copy of it stays fresh.
+ */
+
+public enum WeatherSection {
+
+    CURRENT("current", Duration.ofMinutes(10)),
+    MINUTELY("minutely", Duration.ofMinutes(5)),
+    HOURLY("hourly", Duration.ofHours(1)),
+    DAILY("daily", Duration.ofHours(6)),
+    ALERTS("alerts", Duration.ofMinutes(15));
+
+    private final String key;
+    private final Duration defaultTtl;
+
+    WeatherSection(String key, Duration defaultTtl) {
+        this.key = key;
+        this.defaultTtl = defaultTtl;
+    }
+
+    /**
+     * @return The JSON key of this section, e.g. {@code "current"}.
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @return How long a fetched copy of this section is considered fresh by default.
+     */
+    public Duration defaultTtl() {
+        return defaultTtl;
+    }
+}
@@ -0,0 +1,241 @@
+package WeatherAPP;
+
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The WeatherViewModel class holds the texts and chart data shown by the dashboard as observable properties.
+ * Labels and chart series are bound to it once; every update compares the new raw values with the previous ones
+ * and only formats and sets what actually changed, so an unchanged refresh causes no text formatting,
+ * no change events and no layout pass. Chart data points are updated in place instead of being recreated.
+ *
+ * All methods must be called on the FX thread.
+ */
+
+public class WeatherViewModel {
+
+    private static final String UNAVAILABLE = "Nicht verfügbar";
+
+    private final ReadOnlyStringWrapper temperature = new ReadOnlyStringWrapper("Temperatur: ");
+    private final ReadOnlyStringWrapper feelsLike = new ReadOnlyStringWrapper("Fühlt sich an wie: ");
+    private final ReadOnlyStringWrapper humidity = new ReadOnlyStringWrapper("Luftfeuchtigkeit: ");
+    private final ReadOnlyStringWrapper pressure = new ReadOnlyStringWrapper("Luftdruck: ");
+    private final ReadOnlyStringWrapper windSpeed = new ReadOnlyStringWrapper("Windgeschwindigkeit: ");
+    private final ReadOnlyStringWrapper visibility = new ReadOnlyStringWrapper("Sicht: ");
+    private final ReadOnlyStringWrapper sunrise = new ReadOnlyStringWrapper("Sonnenaufgang: ");
+    private final ReadOnlyStringWrapper sunset = new ReadOnlyStringWrapper("Sonnenuntergang: ");
+    private final ReadOnlyStringWrapper date = new ReadOnlyStringWrapper("Datum: ");
+    private final ReadOnlyStringWrapper lastUpdate = new ReadOnlyStringWrapper("Letzte Aktualisierung: " + UNAVAILABLE);
+    private final ReadOnlyStringWrapper alerts = new ReadOnlyStringWrapper("Wetterwarnungen: Keine");
+
+    private final ObservableList<XYChart.Data<String, Number>> dailyHigh = FXCollections.observableArrayList();
+    private final ObservableList<XYChart.Data<String, Number>> dailyLow = FXCollections.observableArrayList();
+
+    // Raw values of the last update, compared against to find what changed
+    private OneCallData.Current lastCurrent;
+    private String lastDate;
+    private List<OneCallData.Alert> lastAlerts;
+    private OneCallData data;
+
+    /**
+     * Creates a view model that shows no data yet.
+     */
+    public WeatherViewModel() {
+    }
+
+    /**
+     * Shows a decoded response.
+     *
+     * @param data         The decoded response.
+     * @param fetchedAt    The time the response was fetched, in epoch milliseconds.
+     * @param fromSnapshot Whether the response is stored data, from the snapshot store or returned instead of a
+     *                     call the API could not take, rather than a fresh fetch.
+     */
+    public void update(OneCallData data, long fetchedAt, boolean fromSnapshot) {
+        this.data = data;
+        lastUpdate.set("Letzte Aktualisierung: " + WeatherFormat.formatDateTime(fetchedAt)
+                + (fromSnapshot ? " (gespeichert)" : ""));
+
+        String currentDate = WeatherFormat.formatDate(fetchedAt / 1000);
+        if (!currentDate.equals(lastDate)) {
+            lastDate = currentDate;
+            date.set("Datum: " + currentDate);
+        }
+
+        OneCallData.Current current = data.getCurrent();
+        if (current != null) {
+            updateCurrent(current);
+        }
+        if (data.getAlerts() != null && !data.getAlerts().equals(lastAlerts)) {
+            lastAlerts = data.getAlerts();
+            alerts.set(formatAlerts(lastAlerts));
+        }
+        if (data.getDaily() != null) {
+            updateDaily(data.getDaily());
+        }
+    }
+
+    private void updateCurrent(OneCallData.Current current) {
+        OneCallData.Current previous = lastCurrent;
+        lastCurrent = current;
+        if (previous == null || previous.temp() != current.temp()) {
+            temperature.set(String.format("Temperatur: %.2f °C", WeatherFormat.kelvinToCelsius(current.temp())));
+        }
+        if (previous == null || previous.feelsLike() != current.feelsLike()) {
+            feelsLike.set(String.format("Fühlt sich an wie: %.2f °C", WeatherFormat.kelvinToCelsius(current.feelsLike())));
+        }
+        if (previous == null || previous.humidity() != current.humidity()) {
+            humidity.set("Luftfeuchtigkeit: " + current.humidity() + "%");
+        }
+        if (previous == null || previous.pressure() != current.pressure()) {
+            pressure.set("Luftdruck: " + current.pressure() + " hPa");
+        }
+        if (previous == null || previous.windSpeed() != current.windSpeed()) {
+            windSpeed.set(String.format("Windgeschwindigkeit: %.2f km/h", WeatherFormat.mpsToKmh(current.windSpeed())));
+        }
+        if (previous == null || previous.visibility() != current.visibility()) {
+            visibility.set("Sicht: " + current.visibility() + " m");
+        }
+        if (previous == null || previous.sunrise() != current.sunrise()) {
+            sunrise.set("Sonnenaufgang: " + WeatherFormat.formatUnixTime(current.sunrise()));
+        }
+        if (previous == null || previous.sunset() != current.sunset()) {
+            sunset.set("Sonnenuntergang: " + WeatherFormat.formatUnixTime(current.sunset()));
+        }
+    }
+
+    /**
+     * Updates the chart data in place: existing points get new values only where they changed,
+     * points are only added or removed if the number of days changed.
+     */
+    private void updateDaily(OneCallData.Daily daily) {
+        int days = daily.size();
+        while (dailyHigh.size() > days) {
+            dailyHigh.remove(dailyHigh.size() - 1);
+            dailyLow.remove(dailyLow.size() - 1);
+        }
+        for (int i = 0; i < days; i++) {
+            String day = WeatherFormat.formatDayMonth(daily.dt()[i]);
+            double maxTemp = WeatherFormat.kelvinToCelsius(daily.tempMax()[i]);
+            double minTemp = WeatherFormat.kelvinToCelsius(daily.tempMin()[i]);
+            if (i < dailyHigh.size()) {
+                setIfChanged(dailyHigh.get(i), day, maxTemp);
+                setIfChanged(dailyLow.get(i), day, minTemp);
+            } else {
+                dailyHigh.add(new XYChart.Data<>(day, maxTemp));
+                dailyLow.add(new XYChart.Data<>(day, minTemp));
+            }
+        }
+    }
+
+    private static void setIfChanged(XYChart.Data<String, Number> point, String day, double value) {
+        if (!day.equals(point.getXValue())) {
+            point.setXValue(day);
+        }
+        if (!Objects.equals(point.getYValue(), value)) {
+            point.setYValue(value);
+        }
+    }
+
+    private static String formatAlerts(List<OneCallData.Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return "Wetterwarnungen: Keine";
+        }
+        StringBuilder alertsText = new StringBuilder("Wetterwarnungen:\n");
+        for (OneCallData.Alert alert : alerts) {
+            alertsText.append(alert.event()).append("\n").append(alert.description()).append("\n\n");
+        }
+        return alertsText.toString();
+    }
+
+    /**
+     * Shows that no data is available. The next update sets every value again.
+     *
+     * @param lastUpdateText The text shown as last update, e.g. {@code "Letzte Aktualisierung: Fehlgeschlagen"}.
+     */
+    public void setUnavailable(String lastUpdateText) {
+        lastCurrent = null;
+        lastDate = null;
+        temperature.set("Temperatur: " + UNAVAILABLE);
+        feelsLike.set("Fühlt sich an wie: " + UNAVAILABLE);
+        humidity.set("Luftfeuchtigkeit: " + UNAVAILABLE);
+        pressure.set("Luftdruck: " + UNAVAILABLE);
+        windSpeed.set("Windgeschwindigkeit: " + UNAVAILABLE);
+        visibility.set("Sicht: " + UNAVAILABLE);
+        sunrise.set("Sonnenaufgang: " + UNAVAILABLE);
+        sunset.set("Sonnenuntergang: " + UNAVAILABLE);
+        date.set("Datum: " + UNAVAILABLE);
+        lastUpdate.set(lastUpdateText);
+    }
+
+    /**
+     * @return The most recently shown decoded response, or {@code null} if nothing was shown yet.
+     */
+    public OneCallData getData() {
+        return data;
+    }
+
+    public ReadOnlyStringProperty temperatureProperty() {
+        return temperature.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty feelsLikeProperty() {
+        return feelsLike.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty humidityProperty() {
+        return humidity.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty pressureProperty() {
+        return pressure.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty windSpeedProperty() {
+        return windSpeed.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty visibilityProperty() {
+        return visibility.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty sunriseProperty() {
+        return sunrise.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty sunsetProperty() {
+        return sunset.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty dateProperty() {
+        return date.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty lastUpdateProperty() {
+        return lastUpdate.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty alertsProperty() {
+        return alerts.getReadOnlyProperty();
+    }
+
+    /**
+     * @return The daily high temperatures in °C by day, updated in place.
+     */
+    public ObservableList<XYChart.Data<String, Number>> getDailyHigh() {
+        return dailyHigh;
+    }
+
+    /**
+     * @return The daily low temperatures in °C by day, updated in place.
+     */
+    public ObservableList<XYChart.Data<String, Number>> getDailyLow() {
+        return dailyLow;
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * The weather dashboard with its command line mode.
+ * Only the modules listed here end up in the runtime image built by {@code javafx:jlink}.
+ */
+
+module WeatherAPP {
+    // Public signatures use JavaFX types (WeatherApp, WeatherViewModel), HTTP responses (RetryPolicy)
+    // and JFR events (WeatherEvents)
+    requires transitive javafx.controls;
+    requires transitive java.net.http;
+    requires transitive jdk.jfr;
+
+    exports WeatherAPP;
+}
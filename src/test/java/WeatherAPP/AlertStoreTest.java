@@ -0,0 +1,134 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of deduplicating, updating, clearing and expiring alerts and of delivering the changes.
+ */
+
+class AlertStoreTest {
+
+    private static final double VIENNA_LAT = 48.21, VIENNA_LON = 16.37;
+    private static final double LINZ_LAT = 48.31, LINZ_LON = 14.29;
+
+    // Unix seconds; the store's clock is passed in milliseconds
+    private static final long START = 1_700_000_000L;
+    private static final long END = START + 6 * 3600;
+    private static final long FAR_END = 4_102_444_800L; // 2100-01-01, for the queries that use the system clock
+
+    private static OneCallData.Alert storm(String description, long end) {
+        return new OneCallData.Alert("GeoSphere Austria", "Sturm", START, end, description, List.of("Wind"));
+    }
+
+    private static long at(long seconds) {
+        return seconds * 1000;
+    }
+
+    @Test
+    void deduplicatesAlertOfSeveralLocations() {
+        AlertStore store = new AlertStore();
+        AlertStore.Subscription changes = store.subscribe(16, null);
+
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Böen bis 90 km/h", END)), at(START));
+        store.ingest(LINZ_LAT, LINZ_LON, List.of(storm("Böen bis 90 km/h", END)), at(START + 60));
+
+        List<AlertStore.ActiveAlert> active = store.getActive(at(START + 120));
+        assertEquals(1, active.size());
+        assertEquals(2, active.get(0).locations());
+        assertEquals(at(START), active.get(0).firstSeen());
+
+        List<AlertStore.Change> delivered = changes.drain();
+        assertEquals(1, delivered.size());
+        assertEquals(AlertStore.Kind.NEW, delivered.get(0).kind());
+    }
+
+    @Test
+    void publishesUpdateWhenTextChanges() {
+        AlertStore store = new AlertStore();
+        AlertStore.Subscription changes = store.subscribe(16, null);
+
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Böen bis 90 km/h", END)), at(START));
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Böen bis 90 km/h", END)), at(START + 600));
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Böen bis 110 km/h", END)), at(START + 1200));
+
+        List<AlertStore.Change> delivered = changes.drain();
+        assertEquals(List.of(AlertStore.Kind.NEW, AlertStore.Kind.UPDATED),
+                delivered.stream().map(AlertStore.Change::kind).toList());
+        AlertStore.ActiveAlert updated = delivered.get(1).alert();
+        assertEquals("Böen bis 110 km/h", updated.alert().description());
+        assertEquals(at(START), updated.firstSeen());
+        assertEquals(at(START + 1200), updated.changedAt());
+    }
+
+    @Test
+    void clearsAlertOnceNoLocationReportsIt() {
+        AlertStore store = new AlertStore();
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Sturm", END)), at(START));
+        store.ingest(LINZ_LAT, LINZ_LON, List.of(storm("Sturm", END)), at(START));
+        AlertStore.Subscription changes = store.subscribe(16, null);
+
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(), at(START + 600));
+        assertEquals(List.of(), changes.drain());
+        assertEquals(1, store.getActive(at(START + 600)).get(0).locations());
+
+        store.ingest(LINZ_LAT, LINZ_LON, List.of(), at(START + 900));
+        List<AlertStore.Change> delivered = changes.drain();
+        assertEquals(1, delivered.size());
+        assertEquals(AlertStore.Kind.CLEARED, delivered.get(0).kind());
+        assertEquals(List.of(), store.getActive(at(START + 900)));
+    }
+
+    @Test
+    void expiresAlertAtItsEnd() {
+        AlertStore store = new AlertStore();
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Sturm", END)), at(START));
+        AlertStore.Subscription changes = store.subscribe(16, null);
+
+        assertEquals(1, store.getActive(at(END - 1)).size());
+        assertEquals(List.of(), store.getActive(at(END)));
+        assertEquals(AlertStore.Kind.CLEARED, changes.poll().kind());
+        assertNull(changes.poll());
+
+        // A location still reporting the ended alert does not bring it back
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Sturm", END)), at(END + 60));
+        assertEquals(List.of(), store.getActive(at(END + 60)));
+        assertNull(changes.poll());
+    }
+
+    @Test
+    void findsAlertsByRegionAndTimeWindow() {
+        AlertStore store = new AlertStore();
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(storm("Sturm", FAR_END)));
+
+        assertEquals(1, store.getActive(48, 16, 48.5, 16.5, START, START + 3600).size());
+        assertEquals(List.of(), store.getActive(47, 11, 47.5, 11.5, START, START + 3600));
+        assertEquals(List.of(), store.getActive(48, 16, 48.5, 16.5, START - 7200, START - 3600));
+        assertEquals(1, store.getActive(VIENNA_LAT, VIENNA_LON).size());
+        assertEquals(List.of(), store.getActive(LINZ_LAT, LINZ_LON));
+    }
+
+    @Test
+    void dropsChangesOfSlowSubscriber() {
+        AlertStore store = new AlertStore();
+        AtomicInteger signals = new AtomicInteger();
+        AlertStore.Subscription changes = store.subscribe(1, signals::incrementAndGet);
+
+        for (int i = 0; i < 3; i++) {
+            store.ingest(VIENNA_LAT, VIENNA_LON, List.of(new OneCallData.Alert("GeoSphere Austria", "Sturm " + i,
+                    START, END, "", List.of())), at(START + i));
+        }
+
+        // NEW of the first alert, then NEW and CLEARED for each replacement; only the first change fits
+        assertEquals(1, signals.get());
+        assertEquals(4, changes.getDropped());
+        assertEquals(1, changes.drain().size());
+
+        store.ingest(VIENNA_LAT, VIENNA_LON, List.of(), at(START + 10));
+        assertEquals(2, signals.get());
+    }
+}
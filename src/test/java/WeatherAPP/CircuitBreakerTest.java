@@ -0,0 +1,95 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the circuit breaker's state transitions.
+ */
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofHours(1), Duration.ofHours(1));
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofHours(1), Duration.ofHours(1));
+
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void letsSingleProbeThroughAfterOpenPeriod() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, Duration.ZERO);
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void releasedProbeCanBeTakenAgain() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO, Duration.ZERO);
+        breaker.onFailure();
+
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeDoublesOpenPeriod() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(50), Duration.ofSeconds(1));
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Open for 100 ms now
+        Thread.sleep(60);
+        assertFalse(breaker.tryAcquire());
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CircuitBreaker(0, Duration.ofSeconds(1), Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CircuitBreaker(1, Duration.ofSeconds(2), Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,82 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that downsampling keeps peaks, gaps and the end points of a series.
+ */
+
+class DownsamplerTest {
+
+    @Test
+    void minMaxKeepsPeaksInOrder() {
+        long[] dt = {0, 1, 2, 3, 4, 5, 6, 7};
+        float[] values = {1, 9, 2, 3, 5, -4, 6, 6};
+        long[] outDt = new long[4];
+        float[] outValues = new float[4];
+
+        int count = Downsampler.minMax(dt, values, 0, dt.length, 0, 8, 2, outDt, outValues);
+
+        assertEquals(4, count);
+        assertArrayEquals(new long[]{0, 1, 5, 6}, outDt);
+        assertArrayEquals(new float[]{1, 9, -4, 6}, outValues);
+    }
+
+    @Test
+    void minMaxKeepsGapsAndSkipsEmptyBuckets() {
+        long[] dt = {0, 1, 10, 11, 30};
+        float[] values = {2, 2, Float.NaN, Float.NaN, 7};
+        long[] outDt = new long[8];
+        float[] outValues = new float[8];
+
+        int count = Downsampler.minMax(dt, values, 0, dt.length, 0, 40, 4, outDt, outValues);
+
+        assertEquals(3, count);
+        assertArrayEquals(new long[]{0, 10, 30}, Arrays.copyOf(outDt, count));
+        assertEquals(2f, outValues[0]);
+        assertTrue(Float.isNaN(outValues[1]));
+        assertEquals(7f, outValues[2]);
+    }
+
+    @Test
+    void lttbKeepsEndPointsAndSpike() {
+        int size = 1000;
+        long[] dt = new long[size];
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++) {
+            dt[i] = 1705852800L + 60L * i;
+            values[i] = i == 500 ? 100 : 1;
+        }
+        long[] outDt = new long[20];
+        float[] outValues = new float[20];
+
+        int count = Downsampler.lttb(dt, values, 0, size, 20, outDt, outValues);
+
+        assertEquals(20, count);
+        assertEquals(dt[0], outDt[0]);
+        assertEquals(dt[size - 1], outDt[count - 1]);
+        assertTrue(Arrays.binarySearch(outDt, 0, count, dt[500]) >= 0, "spike was dropped");
+        for (int i = 1; i < count; i++) {
+            assertTrue(outDt[i] > outDt[i - 1]);
+        }
+    }
+
+    @Test
+    void lttbReturnsShortSeriesWithoutMissingValues() {
+        long[] dt = {0, 1, 2, 3};
+        float[] values = {Float.NaN, 1, Float.NaN, 3};
+        long[] outDt = new long[4];
+        float[] outValues = new float[4];
+
+        int count = Downsampler.lttb(dt, values, 0, dt.length, 3, outDt, outValues);
+
+        assertEquals(2, count);
+        assertArrayEquals(new long[]{1, 3}, Arrays.copyOf(outDt, count));
+        assertThrows(IllegalArgumentException.class,
+                () -> Downsampler.lttb(dt, values, 0, dt.length, 2, outDt, outValues));
+    }
+}
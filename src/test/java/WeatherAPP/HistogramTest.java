@@ -0,0 +1,72 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the percentiles of the log-linear histogram.
+ */
+
+class HistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0.0, histogram.getMean());
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int value = 0; value < 8; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(3, histogram.getPercentile(50));
+        assertEquals(7, histogram.getPercentile(100));
+        assertEquals(3.5, histogram.getMean());
+    }
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        for (double percentile : new double[]{50, 90, 95, 99, 99.9}) {
+            long exact = (long) Math.ceil(percentile * 100) * 1_000;
+            long reported = histogram.getPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact * 1.125, "p" + percentile + " = " + reported);
+        }
+        // Never more than the largest value
+        assertEquals(10_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    void countsNegativeAndHugeValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(Long.MAX_VALUE / 2, histogram.getPercentile(100));
+    }
+
+    @Test
+    void resetRemovesAllValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(1_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+}
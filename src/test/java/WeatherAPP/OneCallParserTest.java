@@ -0,0 +1,119 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of decoding One Call responses, based on the example response in "example.json", and of merging
+ * partial responses.
+ */
+
+class OneCallParserTest {
+
+    private static String example() throws IOException {
+        return Files.readString(Path.of("example.json"));
+    }
+
+    @Test
+    void parsesExampleResponse() throws IOException {
+        OneCallData data = OneCallParser.parse(example());
+
+        assertEquals(33.44, data.getLatitude());
+        assertEquals(-94.04, data.getLongitude());
+        assertEquals("America/Chicago", data.getTimezone());
+        assertEquals(-21600, data.getTimezoneOffset());
+
+        OneCallData.Current current = data.getCurrent();
+        assertEquals(1705854245L, current.dt());
+        assertEquals(267.68f, current.temp());
+        assertEquals(1034, current.pressure());
+        assertEquals(804, current.weatherId());
+
+        assertEquals(61, data.getMinutely().size());
+        assertEquals(48, data.getHourly().size());
+        assertEquals(1705852800L, data.getHourly().dt()[0]);
+        assertEquals(8, data.getDaily().size());
+        assertEquals(266.97f, data.getDaily().tempMin()[0]);
+        assertEquals(274.1f, data.getDaily().tempMax()[0]);
+        // Requested but not part of the response
+        assertEquals(List.of(), data.getAlerts());
+    }
+
+    @Test
+    void skipsSectionsNotAskedFor() throws IOException {
+        OneCallData data = OneCallParser.parse(example(), EnumSet.of(WeatherSection.CURRENT));
+
+        assertNotNull(data.getCurrent());
+        assertNull(data.getMinutely());
+        assertNull(data.getHourly());
+        assertNull(data.getDaily());
+        assertNull(data.getAlerts());
+    }
+
+    @Test
+    void parsesAlertsAndEscapes() {
+        String json = "{\"lat\":48.2,\"lon\":16.37,\"alerts\":[{\"sender_name\":\"GeoSphere Austria\","
+                + "\"event\":\"Sturm\",\"start\":1705860000,\"end\":1705903200,"
+                + "\"description\":\"B\\u00f6en bis 90 km/h\\nim Bergland\",\"tags\":[\"Wind\",\"Extreme \\\"low\\\"\"]}]}";
+
+        List<OneCallData.Alert> alerts = OneCallParser.parse(json).getAlerts();
+
+        assertEquals(List.of(new OneCallData.Alert("GeoSphere Austria", "Sturm", 1705860000L, 1705903200L,
+                "Böen bis 90 km/h\nim Bergland", List.of("Wind", "Extreme \"low\""))), alerts);
+    }
+
+    @Test
+    void parsesNumberFormats() {
+        String json = "{\"lat\":-1.5e1,\"lon\":2E+2,\"current\":{\"dt\":1705854245,\"temp\":-0.125,\"pressure\":1013}}";
+
+        OneCallData data = OneCallParser.parse(json);
+
+        assertEquals(-15.0, data.getLatitude());
+        assertEquals(200.0, data.getLongitude());
+        assertEquals(-0.125f, data.getCurrent().temp());
+        assertEquals(1013, data.getCurrent().pressure());
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> OneCallParser.parse("{\"lat\":48.2,"));
+        assertThrows(IllegalArgumentException.class, () -> OneCallParser.parse("{\"lat\" 48.2}"));
+        assertThrows(IllegalArgumentException.class, () -> OneCallParser.parse("[]"));
+    }
+
+    @Test
+    void mergeReplacesFetchedSections() throws IOException {
+        String base = example();
+        String update = "{\"lat\":33.44,\"lon\":-94.04,\"current\":{\"dt\":1705857845,\"temp\":270.5,\"weather\":[{\"id\":800}]}}";
+
+        OneCallData merged = OneCallParser.parse(OneCallParser.merge(base, update,
+                EnumSet.of(WeatherSection.CURRENT)));
+
+        assertEquals(1705857845L, merged.getCurrent().dt());
+        assertEquals(270.5f, merged.getCurrent().temp());
+        assertEquals(800, merged.getCurrent().weatherId());
+        // Sections not fetched are kept from the base payload
+        assertEquals(48, merged.getHourly().size());
+        assertEquals(8, merged.getDaily().size());
+        assertEquals("America/Chicago", merged.getTimezone());
+    }
+
+    @Test
+    void mergeRemovesSectionsMissingFromUpdate() {
+        String base = "{\"lat\":48.2,\"lon\":16.37,\"current\":{\"dt\":1},"
+                + "\"alerts\":[{\"sender_name\":\"GeoSphere Austria\",\"event\":\"Sturm\",\"start\":1,\"end\":2}]}";
+        String update = "{\"lat\":48.2,\"lon\":16.37}";
+
+        OneCallData merged = OneCallParser.parse(OneCallParser.merge(base, update, EnumSet.of(WeatherSection.ALERTS)));
+
+        assertEquals(List.of(), merged.getAlerts());
+        assertEquals(1L, merged.getCurrent().dt());
+    }
+}
@@ -0,0 +1,153 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the token bucket, the reserve for locations without cached data and the persisted daily counter.
+ */
+
+class QuotaGovernorTest {
+
+    // Slow enough that no token is refilled while a test runs
+    private static final double NO_REFILL = 1e-6;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void throttlesAfterBurst() {
+        QuotaGovernor governor = new QuotaGovernor(null, 1000, 0, 3, NO_REFILL);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(false));
+        }
+        assertEquals(QuotaGovernor.Decision.THROTTLED, governor.tryAcquire(false));
+        assertTrue(governor.nanosUntilNextToken() > 0);
+        // Throttled calls are not counted
+        assertEquals(3, governor.getCallsToday());
+        assertEquals(997, governor.getRemainingToday());
+    }
+
+    @Test
+    void refillsTokensOverTime() throws InterruptedException {
+        QuotaGovernor governor = new QuotaGovernor(null, 1000, 0, 1, 1000);
+
+        assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(false));
+        assertTrue(governor.nanosUntilNextToken() <= TimeUnit.MILLISECONDS.toNanos(1));
+        Thread.sleep(5);
+        assertEquals(0, governor.nanosUntilNextToken());
+        assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(false));
+    }
+
+    @Test
+    void keepsReserveForCallersWithoutFallback() {
+        QuotaGovernor governor = new QuotaGovernor(null, 5, 2, 10, NO_REFILL);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(true));
+        }
+        assertEquals(QuotaGovernor.Decision.EXHAUSTED, governor.tryAcquire(true));
+        assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(false));
+        assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(false));
+        assertEquals(QuotaGovernor.Decision.EXHAUSTED, governor.tryAcquire(false));
+        assertEquals(0, governor.getRemainingToday());
+    }
+
+    @Test
+    void asksForFallbackOnlyWithinReserve() {
+        QuotaGovernor governor = new QuotaGovernor(null, 3, 1, 10, NO_REFILL);
+        AtomicInteger asked = new AtomicInteger();
+
+        assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(() -> asked.incrementAndGet() > 0));
+        assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(() -> asked.incrementAndGet() > 0));
+        assertEquals(0, asked.get());
+        assertEquals(QuotaGovernor.Decision.EXHAUSTED, governor.tryAcquire(() -> asked.incrementAndGet() > 0));
+        assertEquals(1, asked.get());
+    }
+
+    @Test
+    void persistsDailyCounter() {
+        Path stateFile = directory.resolve("quota.properties");
+        QuotaGovernor governor = new QuotaGovernor(stateFile, 10, 0, 10, NO_REFILL);
+        governor.tryAcquire(false);
+        governor.tryAcquire(false);
+        governor.flush();
+
+        QuotaGovernor restarted = new QuotaGovernor(stateFile, 10, 0, 10, NO_REFILL);
+        assertEquals(2, restarted.getCallsToday());
+        assertEquals(8, restarted.getRemainingToday());
+    }
+
+    @Test
+    void persistsEverySyncCallsWithoutFlush() {
+        Path stateFile = directory.resolve("quota.properties");
+        QuotaGovernor governor = new QuotaGovernor(stateFile, 1000, 0, 100, NO_REFILL);
+        for (int i = 0; i < QuotaGovernor.SYNC_CALLS + 1; i++) {
+            governor.tryAcquire(false);
+        }
+
+        assertEquals(QuotaGovernor.SYNC_CALLS, new QuotaGovernor(stateFile, 1000, 0, 100, NO_REFILL).getCallsToday());
+    }
+
+    @Test
+    void mergesCallsOfGovernorsSharingStateFile() {
+        Path stateFile = directory.resolve("quota.properties");
+        QuotaGovernor dashboard = new QuotaGovernor(stateFile, 1000, 0, 100, NO_REFILL);
+        QuotaGovernor export = new QuotaGovernor(stateFile, 1000, 0, 100, NO_REFILL);
+        for (int i = 0; i < 7; i++) {
+            dashboard.tryAcquire(false);
+            export.tryAcquire(false);
+        }
+        dashboard.flush();
+        export.flush();
+
+        assertEquals(14, export.getCallsToday());
+        assertEquals(14, new QuotaGovernor(stateFile, 1000, 0, 100, NO_REFILL).getCallsToday());
+    }
+
+    @Test
+    void seesCallsOfOtherGovernorsWithinReserve() {
+        Path stateFile = directory.resolve("quota.properties");
+        QuotaGovernor dashboard = new QuotaGovernor(stateFile, 12, 2, 100, NO_REFILL);
+        QuotaGovernor export = new QuotaGovernor(stateFile, 12, 2, 100, NO_REFILL);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(QuotaGovernor.Decision.ALLOW, export.tryAcquire(false));
+        }
+
+        assertEquals(QuotaGovernor.Decision.ALLOW, dashboard.tryAcquire(false));
+        dashboard.flush();
+        assertEquals(11, dashboard.getCallsToday());
+
+        // Both merge on every call within the reserve, so together they stop at the budget
+        assertEquals(QuotaGovernor.Decision.ALLOW, export.tryAcquire(false));
+        assertEquals(QuotaGovernor.Decision.EXHAUSTED, dashboard.tryAcquire(false));
+        assertEquals(QuotaGovernor.Decision.EXHAUSTED, export.tryAcquire(false));
+    }
+
+    @Test
+    void ignoresCounterOfEarlierDay() throws IOException {
+        Path stateFile = directory.resolve("quota.properties");
+        Files.writeString(stateFile, "day=2000-01-01\ncalls=999\n");
+
+        QuotaGovernor governor = new QuotaGovernor(stateFile, 1000, 0, 10, NO_REFILL);
+        assertEquals(0, governor.getCallsToday());
+        assertEquals(QuotaGovernor.Decision.ALLOW, governor.tryAcquire(false));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new QuotaGovernor(null, 0, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaGovernor(null, 10, -1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaGovernor(null, 10, 0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaGovernor(null, 10, 0, 1, 0));
+    }
+}
@@ -0,0 +1,138 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of which failures are retried and of the retry delays.
+ */
+
+class RetryPolicyTest {
+
+    private static final RetryPolicy POLICY =
+            new RetryPolicy(4, Duration.ofMillis(100), Duration.ofSeconds(2), Duration.ofSeconds(10));
+
+    @Test
+    void retriesServerErrorsOnly() {
+        for (int status : new int[]{408, 500, 502, 503, 504}) {
+            assertTrue(RetryPolicy.isRetryable(status), "HTTP " + status);
+        }
+        for (int status : new int[]{200, 304, 400, 401, 404, 429, 501}) {
+            assertFalse(RetryPolicy.isRetryable(status), "HTTP " + status);
+        }
+    }
+
+    @Test
+    void retriesTooManyRequestsOnlyWithRetryAfter() {
+        assertFalse(RetryPolicy.isRetryable(response(429, Map.of())));
+        assertTrue(RetryPolicy.isRetryable(response(429, Map.of("Retry-After", List.of("1")))));
+        assertTrue(RetryPolicy.isRetryable(response(503, Map.of())));
+        assertFalse(RetryPolicy.isRetryable(response(401, Map.of("Retry-After", List.of("1")))));
+    }
+
+    @Test
+    void retriesIoErrors() {
+        assertTrue(RetryPolicy.isRetryable(new HttpTimeoutException("timeout")));
+        assertTrue(RetryPolicy.isRetryable(new CompletionException(new IOException("reset"))));
+        assertFalse(RetryPolicy.isRetryable(new CompletionException(new IllegalStateException())));
+    }
+
+    @Test
+    void delayGrowsExponentiallyWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            assertBetween(50, 100, POLICY.nextDelayNanos(1, 0, null));
+            assertBetween(100, 200, POLICY.nextDelayNanos(2, 0, null));
+            assertBetween(200, 400, POLICY.nextDelayNanos(3, 0, null));
+        }
+        assertEquals(-1, POLICY.nextDelayNanos(4, 0, null));
+    }
+
+    @Test
+    void delayIsCappedAtMaxDelay() {
+        RetryPolicy policy = new RetryPolicy(100, Duration.ofMillis(100), Duration.ofSeconds(2), Duration.ofHours(1));
+
+        assertBetween(1000, 2000, policy.nextDelayNanos(50, 0, null));
+    }
+
+    @Test
+    void honorsRetryAfter() {
+        HttpResponse<String> response = response(503, Map.of("Retry-After", List.of("1")));
+        assertBetween(1000, 1000, POLICY.nextDelayNanos(1, 0, response));
+
+        // Asks for more than the maximum delay
+        assertEquals(-1, POLICY.nextDelayNanos(1, 0, response(503, Map.of("Retry-After", List.of("60")))));
+        // A date is not understood and ignored
+        assertBetween(50, 100, POLICY.nextDelayNanos(1, 0,
+                response(503, Map.of("Retry-After", List.of("Wed, 21 Oct 2026 07:28:00 GMT")))));
+    }
+
+    @Test
+    void stopsRetryingWhenBudgetIsUsedUp() {
+        assertEquals(-1, POLICY.nextDelayNanos(1, Duration.ofSeconds(10).toNanos(), null));
+        assertEquals(-1, RetryPolicy.NONE.nextDelayNanos(1, 0, null));
+    }
+
+    private static void assertBetween(long minMillis, long maxMillis, long nanos) {
+        assertTrue(nanos >= Duration.ofMillis(minMillis).toNanos() && nanos <= Duration.ofMillis(maxMillis).toNanos(),
+                "delay of " + nanos + " ns");
+    }
+
+    private static HttpResponse<String> response(int status, Map<String, List<String>> headers) {
+        return new HttpResponse<>() {
+            @Override
+            public int statusCode() {
+                return status;
+            }
+
+            @Override
+            public HttpRequest request() {
+                return HttpRequest.newBuilder(URI.create("http://localhost/data/3.0/onecall")).build();
+            }
+
+            @Override
+            public Optional<HttpResponse<String>> previousResponse() {
+                return Optional.empty();
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(headers, (name, value) -> true);
+            }
+
+            @Override
+            public String body() {
+                return "";
+            }
+
+            @Override
+            public Optional<SSLSession> sslSession() {
+                return Optional.empty();
+            }
+
+            @Override
+            public URI uri() {
+                return request().uri();
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the on-disk snapshot files: reading back, compaction and records cut short by a crash.
+ */
+
+class SnapshotStoreTest {
+
+    private static final double LAT = 48.2082;
+    private static final double LON = 16.3738;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void latestIsNullForUnknownLocation() {
+        SnapshotStore store = new SnapshotStore(directory, 3, 0.01);
+        assertNull(store.latest(LAT, LON));
+        assertEquals(List.of(), store.history(LAT, LON));
+    }
+
+    @Test
+    void latestReturnsNewestSnapshot() {
+        SnapshotStore store = new SnapshotStore(directory, 3, 0.01);
+        store.append(LAT, LON, 1000, "{\"a\":1}");
+        store.append(LAT, LON, 2000, "{\"a\":2}");
+
+        assertEquals(new SnapshotStore.Snapshot(2000, "{\"a\":2}"), store.latest(LAT, LON));
+        // Coordinates in the same grid cell share the file
+        assertEquals(new SnapshotStore.Snapshot(2000, "{\"a\":2}"), store.latest(LAT + 0.001, LON - 0.001));
+        assertNull(store.latest(LAT + 1, LON));
+    }
+
+    @Test
+    void snapshotsSurviveRestart() {
+        new SnapshotStore(directory, 3, 0.01).append(LAT, LON, 1000, "{\"text\":\"Wien, Österreich\"}");
+
+        SnapshotStore reopened = new SnapshotStore(directory, 3, 0.01);
+        assertEquals(new SnapshotStore.Snapshot(1000, "{\"text\":\"Wien, Österreich\"}"), reopened.latest(LAT, LON));
+    }
+
+    @Test
+    void compactionKeepsNewestSnapshots() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 3, 0.01);
+        for (int i = 1; i <= 10; i++) {
+            store.append(LAT, LON, i * 1000L, "{\"i\":" + i + "}");
+        }
+
+        List<SnapshotStore.Snapshot> expected = List.of(
+                new SnapshotStore.Snapshot(8000, "{\"i\":8}"),
+                new SnapshotStore.Snapshot(9000, "{\"i\":9}"),
+                new SnapshotStore.Snapshot(10000, "{\"i\":10}"));
+        assertEquals(expected, store.history(LAT, LON));
+        assertEquals(expected, new SnapshotStore(directory, 3, 0.01).history(LAT, LON));
+
+        // Compacted at 6 records down to 3, then 4 more appended
+        long recordSize = Long.BYTES + Integer.BYTES + "{\"i\":10}".length();
+        assertTrue(Files.size(snapshotFile()) <= 4 * recordSize, "file was not compacted");
+    }
+
+    @Test
+    void truncatedRecordIsIgnored() throws IOException {
+        new SnapshotStore(directory, 3, 0.01).append(LAT, LON, 1000, "{\"a\":1}");
+        // A record whose payload was cut short by a crash
+        Files.write(snapshotFile(), new byte[]{0, 0, 0, 0, 0, 0, 7, -48, 0, 0, 0, 100, '{'}, StandardOpenOption.APPEND);
+
+        SnapshotStore reopened = new SnapshotStore(directory, 3, 0.01);
+        assertEquals(new SnapshotStore.Snapshot(1000, "{\"a\":1}"), reopened.latest(LAT, LON));
+        assertEquals(1, reopened.history(LAT, LON).size());
+    }
+
+    @Test
+    void appendsAfterTruncatedRecord() throws IOException {
+        new SnapshotStore(directory, 3, 0.01).append(LAT, LON, 1000, "{\"a\":1}");
+        // The header of a 100 byte record without its payload
+        Files.write(snapshotFile(), new byte[]{0, 0, 0, 0, 0, 0, 7, -48, 0, 0, 0, 100, '{'}, StandardOpenOption.APPEND);
+
+        SnapshotStore reopened = new SnapshotStore(directory, 3, 0.01);
+        for (int i = 2; i <= 10; i++) {
+            reopened.append(LAT, LON, i * 1000L, "{\"a\":" + i + "}");
+            assertEquals(new SnapshotStore.Snapshot(i * 1000L, "{\"a\":" + i + "}"),
+                    new SnapshotStore(directory, 3, 0.01).latest(LAT, LON));
+        }
+
+        List<SnapshotStore.Snapshot> expected = List.of(
+                new SnapshotStore.Snapshot(8000, "{\"a\":8}"),
+                new SnapshotStore.Snapshot(9000, "{\"a\":9}"),
+                new SnapshotStore.Snapshot(10000, "{\"a\":10}"));
+        assertEquals(expected, new SnapshotStore(directory, 3, 0.01).history(LAT, LON));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotStore(directory, 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotStore(directory, 3, 0));
+    }
+
+    private Path snapshotFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> all = files.toList();
+            assertEquals(1, all.size());
+            return all.get(0);
+        }
+    }
+}
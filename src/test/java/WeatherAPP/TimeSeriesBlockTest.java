@@ -0,0 +1,87 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that compressed blocks decode to exactly the rows they were encoded from.
+ */
+
+class TimeSeriesBlockTest {
+
+    @Test
+    void roundTripsRegularSeries() {
+        int count = TimeSeriesStore.BLOCK_SIZE;
+        long[] dt = new long[count];
+        float[] temp = new float[count];
+        float[] precipitation = new float[count];
+        for (int i = 0; i < count; i++) {
+            dt[i] = 1705852800L + 60L * i;
+            temp[i] = 270 + (i / 10) * 0.25f;
+            precipitation[i] = i < 100 ? 0 : 0.1f * (i % 7);
+        }
+
+        TimeSeriesBlock block = TimeSeriesBlock.encode(dt, new float[][]{temp, precipitation}, count);
+
+        assertEquals(count, block.size());
+        assertEquals(dt[0], block.getFirstDt());
+        assertEquals(dt[count - 1], block.getLastDt());
+        assertArrayEquals(dt, block.decodeTimestamps());
+        assertArrayEquals(temp, block.decodeColumn(0));
+        assertArrayEquals(precipitation, block.decodeColumn(1));
+        // Regular timestamps and slowly changing values take far less than the 12 bytes per row of the raw arrays
+        assertTrue(block.getMemoryUsage() < count * 12 / 2, "block takes " + block.getMemoryUsage() + " bytes");
+    }
+
+    @Test
+    void roundTripsIrregularTimestampsAndSpecialValues() {
+        long[] dt = {-5, 0, 1, 3, 1_000, 1_001, 5_000_000, 5_000_060, Long.MAX_VALUE / 2, Long.MAX_VALUE / 2 + 1};
+        float[] values = {0, -0.0f, Float.NaN, 1, -1, Float.MIN_VALUE, Float.MAX_VALUE, Float.NEGATIVE_INFINITY,
+                Float.NaN, 0.1f};
+
+        TimeSeriesBlock block = TimeSeriesBlock.encode(dt, new float[][]{values}, dt.length);
+
+        assertArrayEquals(dt, block.decodeTimestamps());
+        float[] decoded = block.decodeColumn(0);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Float.floatToRawIntBits(values[i]), Float.floatToRawIntBits(decoded[i]), "row " + i);
+        }
+    }
+
+    @Test
+    void roundTripsRandomValues() {
+        Random random = new Random(42);
+        int count = 1000;
+        long[] dt = new long[count];
+        float[] values = new float[count];
+        for (int i = 1; i < count; i++) {
+            dt[i] = dt[i - 1] + 1 + random.nextInt(random.nextBoolean() ? 2 : 100_000);
+            values[i] = random.nextBoolean() ? values[i - 1] : Float.intBitsToFloat(random.nextInt());
+        }
+
+        TimeSeriesBlock block = TimeSeriesBlock.encode(dt, new float[][]{values}, count);
+
+        assertArrayEquals(dt, block.decodeTimestamps());
+        float[] decoded = block.decodeColumn(0);
+        for (int i = 0; i < count; i++) {
+            assertEquals(Float.floatToRawIntBits(values[i]), Float.floatToRawIntBits(decoded[i]), "row " + i);
+        }
+    }
+
+    @Test
+    void encodesOnlyGivenRows() {
+        long[] dt = {60, 120, 180, 240};
+        float[] values = {1, 2, 3, 4};
+
+        TimeSeriesBlock block = TimeSeriesBlock.encode(dt, new float[][]{values}, 2);
+
+        assertEquals(2, block.size());
+        assertEquals(120, block.getLastDt());
+        assertArrayEquals(Arrays.copyOf(dt, 2), block.decodeTimestamps());
+        assertArrayEquals(Arrays.copyOf(values, 2), block.decodeColumn(0));
+    }
+}
@@ -0,0 +1,143 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the history store: overlapping forecasts, sealing into blocks, retention and downsampling.
+ */
+
+class TimeSeriesStoreTest {
+
+    private static final double LAT = 48.2082;
+    private static final double LON = 16.3738;
+    private static final long START = 1705852800L; // a full hour
+
+    /**
+     * @return A response with a minutely forecast of 61 minutes starting at {@code from}, with the value
+     *         of every minute given by {@link #precipitation(long)} plus {@code offset}.
+     */
+    private static OneCallData minutely(long from, float offset) {
+        long[] dt = new long[61];
+        float[] values = new float[61];
+        for (int i = 0; i < dt.length; i++) {
+            dt[i] = from + 60L * i;
+            values[i] = precipitation(dt[i]) + offset;
+        }
+        return new OneCallData(LAT, LON, "UTC", 0, null, new OneCallData.Minutely(dt, values), null, null, null);
+    }
+
+    private static float precipitation(long dt) {
+        return (dt / 60 % 13) * 0.1f;
+    }
+
+    @Test
+    void queryOfUnknownLocationIsEmpty() {
+        TimeSeriesStore store = new TimeSeriesStore();
+        assertEquals(0, store.query(LAT, LON, TimeSeriesStore.Metric.PRECIPITATION, 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void newerForecastReplacesOverlappingRows() {
+        TimeSeriesStore store = new TimeSeriesStore();
+        store.ingest(LAT, LON, minutely(START, 0));
+        store.ingest(LAT, LON, minutely(START + 1800, 5));
+
+        TimeSeriesStore.TimeSeries series =
+                store.query(LAT, LON, TimeSeriesStore.Metric.PRECIPITATION, 0, Long.MAX_VALUE);
+
+        assertEquals(91, series.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(START + 60L * i, series.dt()[i]);
+            float offset = i < 30 ? 0 : 5;
+            assertEquals(precipitation(series.dt()[i]) + offset, series.values()[i], "row " + i);
+        }
+        // Hourly metrics come from a section that was not part of the responses
+        assertEquals(0, store.query(LAT, LON, TimeSeriesStore.Metric.TEMP, 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void keepsHistoryAcrossSealedBlocks() {
+        TimeSeriesStore store = new TimeSeriesStore();
+        int responses = 96; // one day of refreshes every 15 minutes
+        for (int r = 0; r < responses; r++) {
+            store.ingest(LAT, LON, minutely(START + 900L * r, 0));
+        }
+
+        TimeSeriesStore.TimeSeries series =
+                store.query(LAT, LON, TimeSeriesStore.Metric.PRECIPITATION, 0, Long.MAX_VALUE);
+
+        int expected = (responses - 1) * 15 + 61;
+        assertTrue(expected > 2 * TimeSeriesStore.BLOCK_SIZE);
+        assertEquals(expected, series.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(START + 60L * i, series.dt()[i]);
+            assertEquals(precipitation(series.dt()[i]), series.values()[i], "row " + i);
+        }
+
+        // A range within the sealed blocks
+        TimeSeriesStore.TimeSeries range = store.query(LAT, LON, TimeSeriesStore.Metric.PRECIPITATION,
+                START + 3600, START + 7200);
+        assertEquals(61, range.size());
+        assertEquals(START + 3600, range.dt()[0]);
+    }
+
+    @Test
+    void dropsBlocksOlderThanRetention() {
+        TimeSeriesStore store = new TimeSeriesStore(Duration.ofHours(6), 0.01);
+        int responses = 4 * 48;
+        for (int r = 0; r < responses; r++) {
+            store.ingest(LAT, LON, minutely(START + 900L * r, 0));
+        }
+
+        TimeSeriesStore.TimeSeries series =
+                store.query(LAT, LON, TimeSeriesStore.Metric.PRECIPITATION, 0, Long.MAX_VALUE);
+
+        long newest = series.dt()[series.size() - 1];
+        long oldest = series.dt()[0];
+        // Whole blocks are dropped, so up to one block older than the retention is kept
+        assertTrue(oldest >= newest - Duration.ofHours(6).toSeconds() - 60L * TimeSeriesStore.BLOCK_SIZE);
+        assertTrue(oldest > START);
+    }
+
+    @Test
+    void downsamplesIntoAlignedIntervals() {
+        TimeSeriesStore store = new TimeSeriesStore();
+        store.ingest(LAT, LON, minutely(START, 0));
+
+        TimeSeriesStore.TimeSeries hourly = store.query(LAT, LON, TimeSeriesStore.Metric.PRECIPITATION,
+                0, Long.MAX_VALUE, Duration.ofHours(1), TimeSeriesStore.Aggregation.MAX);
+
+        assertArrayEquals(new long[]{START, START + 3600}, hourly.dt());
+        assertEquals(1.2f, hourly.values()[0], 1e-6f);
+        assertEquals(precipitation(START + 3600), hourly.values()[1]);
+    }
+
+    @Test
+    void downsamplingSkipsMissingValues() {
+        TimeSeriesStore.TimeSeries series = new TimeSeriesStore.TimeSeries(
+                new long[]{0, 10, 20, 60}, new float[]{1, Float.NaN, 3, Float.NaN});
+
+        TimeSeriesStore.TimeSeries mean = TimeSeriesStore.downsample(series, 60, TimeSeriesStore.Aggregation.MEAN);
+
+        assertArrayEquals(new long[]{0, 60}, mean.dt());
+        assertEquals(2f, mean.values()[0]);
+        assertTrue(Float.isNaN(mean.values()[1]));
+    }
+
+    @Test
+    void removeForgetsLocation() {
+        TimeSeriesStore store = new TimeSeriesStore();
+        store.ingest(LAT, LON, minutely(START, 0));
+        assertEquals(1, store.getLocationCount());
+        assertTrue(store.getMemoryUsage() > 0);
+
+        store.remove(LAT + 0.001, LON);
+
+        assertEquals(0, store.getLocationCount());
+        assertEquals(0, store.query(LAT, LON, TimeSeriesStore.Metric.PRECIPITATION, 0, Long.MAX_VALUE).size());
+    }
+}
@@ -0,0 +1,62 @@
+package WeatherAPP;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the export formats, based on small One Call responses.
+ */
+
+class WeatherExporterTest {
+
+    private static final String VIENNA = "{\"lat\":48.2085,\"lon\":16.3721,\"timezone\":\"Europe/Vienna\","
+            + "\"current\":{\"dt\":1705854245,\"temp\":273.15,\"pressure\":1020,\"humidity\":80}}";
+    private static final String NO_COORDINATES = "{\"timezone\":\"UTC\",\"current\":{\"dt\":1705854245}}";
+
+    private static String export(WeatherExporter.Format format, String... payloads) throws IOException {
+        StringWriter out = new StringWriter();
+        try (WeatherExporter exporter = new WeatherExporter(out, format, EnumSet.of(WeatherSection.CURRENT))) {
+            for (int i = 0; i < payloads.length; i++) {
+                exporter.write("Ort " + i, OneCallParser.parse(payloads[i]));
+            }
+        }
+        return out.toString();
+    }
+
+    @Test
+    void writesGeoJsonFeatureCollection() throws IOException {
+        String geoJson = export(WeatherExporter.Format.GEOJSON, VIENNA, NO_COORDINATES);
+
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[\n"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[16.3721,48.2085]},"
+                + "\"properties\":{\"name\":\"Ort 0\",\"timezone\":\"Europe/Vienna\",\"current\":{\"dt\":1705854245,"
+                + "\"temp_c\":0,\"feels_like_c\":null,\"humidity\":80,\"pressure\":1020,\"wind_kmh\":null,"
+                + "\"precipitation_mm\":null,\"weather_id\":-1}}},\n"
+                + "{\"type\":\"Feature\",\"geometry\":null,"
+                + "\"properties\":{\"name\":\"Ort 1\",\"timezone\":\"UTC\",\"current\":{\"dt\":1705854245,"
+                + "\"temp_c\":null,\"feels_like_c\":null,\"humidity\":null,\"pressure\":null,\"wind_kmh\":null,"
+                + "\"precipitation_mm\":null,\"weather_id\":-1}}}\n"
+                + "]}\n", geoJson);
+    }
+
+    @Test
+    void closesEmptyGeoJsonFeatureCollection() throws IOException {
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[\n]}\n", export(WeatherExporter.Format.GEOJSON));
+    }
+
+    @Test
+    void writesMissingCoordinatesAsNull() throws IOException {
+        String ndjson = export(WeatherExporter.Format.NDJSON, VIENNA, NO_COORDINATES);
+        String csv = export(WeatherExporter.Format.CSV, NO_COORDINATES);
+
+        assertTrue(ndjson.startsWith("{\"name\":\"Ort 0\",\"lat\":48.2085,\"lon\":16.3721,"), ndjson);
+        assertTrue(ndjson.contains("{\"name\":\"Ort 1\",\"lat\":null,\"lon\":null,"), ndjson);
+        assertFalse(ndjson.contains("NaN"), ndjson);
+        assertTrue(csv.contains("\nOrt 0,,,current,1705854245,"), csv);
+    }
+}